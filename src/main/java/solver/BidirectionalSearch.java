@@ -0,0 +1,166 @@
+package solver;
+
+import puzzle.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+
+/**
+ * Implements a bidirectional breadth-first search that meets in the middle.
+ * <p>
+ * The search expands whole layers forward from the initial state and
+ * backward from the goal state, always continuing with the smaller frontier.
+ * Backward expansion applies the regular moves of the puzzle, therefore the
+ * move set must be closed under inversion, i.e., every move must have an
+ * inverse move that undoes it. With a branching factor of {@code b} and a
+ * solution of length {@code d}, both sides only have to reach depth
+ * {@code d / 2}, visiting roughly {@code 2 * b^(d/2)} states instead of
+ * {@code b^d}.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+public class BidirectionalSearch<T> {
+
+    private final UnaryOperator<T> inverse;
+    private final MovePruner<T> pruner;
+    private long expandedCount;
+
+    /**
+     * Creates a {@code BidirectionalSearch} for puzzles whose moves are
+     * inverted by the function provided.
+     *
+     * @param inverse the function returning the move that undoes a move
+     */
+    public BidirectionalSearch(UnaryOperator<T> inverse) {
+        this(inverse, MovePruner.none());
+    }
+
+    /**
+     * Creates a {@code BidirectionalSearch} for puzzles whose moves are
+     * inverted by the function provided, skipping the moves pruned by the
+     * automaton provided in both directions. The automaton must only prune
+     * sequences having strictly shorter equivalents, since the search detects
+     * duplicate states.
+     *
+     * @param inverse the function returning the move that undoes a move
+     * @param pruner  the move pruning automaton
+     */
+    public BidirectionalSearch(UnaryOperator<T> inverse, MovePruner<T> pruner) {
+        this.inverse = inverse;
+        this.pruner = pruner;
+    }
+
+    /**
+     * Searches for the shortest sequence of moves transforming the initial state
+     * into the goal state.
+     *
+     * @param state the initial state
+     * @param goal  the goal state
+     * @return an {@code Optional} describing the shortest solution, whose state is
+     *         equal to the goal state, or an empty {@code Optional} if the goal
+     *         state is unreachable
+     */
+    public Optional<Node<T>> solve(State<T> state, State<T> goal) {
+        var start = new Node<>(state);
+        expandedCount = 0;
+        if (state.equals(goal)) {
+            return Optional.of(start);
+        }
+        var end = new Node<>(goal);
+        var forwardSeen = new UnifiedMap<State<T>, Node<T>>();
+        var backwardSeen = new UnifiedMap<State<T>, Node<T>>();
+        forwardSeen.put(state, start);
+        backwardSeen.put(goal, end);
+        List<Node<T>> forwardFrontier = List.of(start);
+        List<Node<T>> backwardFrontier = List.of(end);
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            var forward = forwardFrontier.size() <= backwardFrontier.size();
+            var seen = forward ? forwardSeen : backwardSeen;
+            var other = forward ? backwardSeen : forwardSeen;
+            var next = new ArrayList<Node<T>>();
+            Node<T> bestNode = null;
+            Node<T> bestOther = null;
+            var bestLength = Integer.MAX_VALUE;
+            for (var selected : forward ? forwardFrontier : backwardFrontier) {
+                expandedCount++;
+                for (var nextChild : selected.expand(pruner)) {
+                    var meeting = other.get(nextChild.getState());
+                    if (meeting != null && depthOf(meeting) < bestLength) {
+                        bestNode = nextChild;
+                        bestOther = meeting;
+                        bestLength = depthOf(meeting);
+                    }
+                    if (seen.putIfAbsent(nextChild.getState(), nextChild) == null) {
+                        next.add(nextChild);
+                    }
+                }
+            }
+            if (bestNode != null) {
+                return Optional.of(forward ? join(bestNode, bestOther) : join(bestOther, bestNode));
+            }
+            if (forward) {
+                forwardFrontier = next;
+            } else {
+                backwardFrontier = next;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Searches for the shortest sequence of moves transforming the initial state
+     * into the goal state, and it also prints the solution to the standard
+     * output.
+     *
+     * @param state the initial state
+     * @param goal  the goal state
+     * @return an {@code Optional} describing the shortest solution, or an empty
+     *         {@code Optional} if the goal state is unreachable
+     */
+    public Optional<Node<T>> solveAndPrintSolution(State<T> state, State<T> goal) {
+        var solution = solve(state, goal);
+        solution.ifPresentOrElse(
+                this::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search run by this
+     * instance, i.e., the number of states whose children were generated.
+     *
+     * @return the number of states expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expandedCount;
+    }
+
+    private Node<T> join(Node<T> forwardNode, Node<T> backwardNode) {
+        var current = forwardNode;
+        for (var node = backwardNode; node.getParent().isPresent(); node = node.getParent().get()) {
+            var move = inverse.apply(node.getMove().orElseThrow());
+            var nextState = current.getState().clone();
+            nextState.makeMove(move);
+            current = new Node<>(nextState, current, move);
+        }
+        return current;
+    }
+
+    private static int depthOf(Node<?> node) {
+        var depth = 0;
+        for (var current = node; current.getParent().isPresent(); current = current.getParent().get()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private void printPathTo(Node<T> node) {
+        node.getPath().forEach(System.out::println);
+    }
+
+}
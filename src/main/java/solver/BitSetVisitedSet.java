@@ -0,0 +1,51 @@
+package solver;
+
+import java.util.BitSet;
+
+/**
+ * A visited set backed by a bitset, for keys produced by a
+ * {@link StateIndexer}, i.e., dense indices in {@code [0, size)}.
+ */
+public class BitSetVisitedSet implements VisitedSet {
+    private final BitSet bits;
+    private long size;
+
+    /**
+     * Creates a visited set for the indices in {@code [0, capacity)}.
+     *
+     * @param capacity the number of indices
+     * @throws IllegalArgumentException if the capacity is larger than
+     *                                  {@code Integer.MAX_VALUE}
+     */
+    public BitSetVisitedSet(long capacity) {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many states for a bitset: " + capacity);
+        }
+        bits = new BitSet((int) capacity);
+    }
+
+    @Override
+    public boolean add(long key) {
+        if (bits.get((int) key)) {
+            return false;
+        }
+        bits.set((int) key);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return bits.get((int) key);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        bits.clear();
+    }
+}
@@ -5,6 +5,7 @@ import puzzle.State;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
@@ -15,6 +16,27 @@ import org.eclipse.collections.impl.set.mutable.UnifiedSet;
  */
 public class BreadthFirstSearchModified<T> {
 
+    private final MovePruner<T> pruner;
+    private long expandedCount;
+
+    /**
+     * Creates a {@code BreadthFirstSearchModified} expanding every move.
+     */
+    public BreadthFirstSearchModified() {
+        this(MovePruner.none());
+    }
+
+    /**
+     * Creates a {@code BreadthFirstSearchModified} skipping the moves pruned by
+     * the automaton provided, which must only prune sequences having strictly
+     * shorter equivalents, since the search detects duplicate states.
+     *
+     * @param pruner the move pruning automaton
+     */
+    public BreadthFirstSearchModified(MovePruner<T> pruner) {
+        this.pruner = pruner;
+    }
+
     /**
      * Searches for the shortest solution for the puzzle starting from the state
      * provided.
@@ -29,12 +51,14 @@ public class BreadthFirstSearchModified<T> {
         var start = new Node<>(state);
         open.add(start);
         seen.add(start);
+        expandedCount = 0;
         while (!open.isEmpty()) {
             var selected = open.pollFirst();
             if (selected.getState().isSolved()) {
                 return Optional.of(selected);
             }
-            for (var nextChild : selected.expand()) {
+            expandedCount++;
+            for (var nextChild : selected.expand(pruner)) {
                 if (!seen.contains(nextChild)) {
                     open.offerLast(nextChild);
                     seen.add(nextChild);
@@ -44,6 +68,87 @@ public class BreadthFirstSearchModified<T> {
         return Optional.empty();
     }
 
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided, keeping track of the visited states by their packed encodings.
+     * <p>
+     * Instead of retaining every visited {@code Node}, only the {@code long}
+     * keys produced by the encoder are stored in an open-addressing primitive
+     * set, so nodes that are no longer part of the frontier can be garbage
+     * collected, and membership tests do not allocate.
+     * </p>
+     *
+     * @param state   the initial state
+     * @param encoder the encoder mapping states to unique {@code long} keys
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     */
+    public Optional<Node<T>> solve(State<T> state, StateEncoder<T> encoder) {
+        return solve(state, encoder, HashVisitedSet::new);
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided, marking the visited states in a bitset indexed by the perfect
+     * hash provided.
+     * <p>
+     * The visited table takes exactly {@code indexer.size()} bits regardless of
+     * the number of states visited, and membership tests involve no hashing,
+     * collisions or allocation.
+     * </p>
+     *
+     * @param state   the initial state
+     * @param indexer the perfect hash mapping states to dense indices
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalArgumentException if the indexer has more than
+     *                                  {@code Integer.MAX_VALUE} indices
+     */
+    public Optional<Node<T>> solve(State<T> state, StateIndexer<T> indexer) {
+        return solve(state, indexer, () -> new BitSetVisitedSet(indexer.size()));
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided, keeping track of the visited states by their keys in a visited
+     * set created for this search.
+     * <p>
+     * The visited set is closed when the search ends, so an
+     * {@link OffHeapVisitedSet} releases its memory as soon as the solution is
+     * found, without waiting for the garbage collector.
+     * </p>
+     *
+     * @param state             the initial state
+     * @param encoder           the encoder mapping states to unique
+     *                          {@code long} keys
+     * @param visitedSetFactory the factory creating the visited set
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     */
+    public Optional<Node<T>> solve(State<T> state, StateEncoder<T> encoder,
+            Supplier<? extends VisitedSet> visitedSetFactory) {
+        try (var seen = visitedSetFactory.get()) {
+            Deque<Node<T>> open = new ArrayDeque<>();
+            var start = new Node<>(state);
+            open.add(start);
+            seen.add(encoder.encode(state));
+            expandedCount = 0;
+            while (!open.isEmpty()) {
+                var selected = open.pollFirst();
+                if (selected.getState().isSolved()) {
+                    return Optional.of(selected);
+                }
+                expandedCount++;
+                for (var nextChild : selected.expand(pruner)) {
+                    if (seen.add(encoder.encode(nextChild.getState()))) {
+                        open.offerLast(nextChild);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
     /**
      * Searches for the shortest solution for the puzzle starting from the state
      * provided, and it also prints the solution to the standard output.
@@ -60,9 +165,78 @@ public class BreadthFirstSearchModified<T> {
         return solution;
     }
 
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided using the packed visited set, and it also prints the solution to
+     * the standard output.
+     *
+     * @param state   the initial state
+     * @param encoder the encoder mapping states to unique {@code long} keys
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @see #solve(State, StateEncoder)
+     */
+    public Optional<Node<T>> solveAndPrintSolution(State<T> state, StateEncoder<T> encoder) {
+        var solution = solve(state, encoder);
+        solution.ifPresentOrElse(
+                this::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided using the visited bitset, and it also prints the solution to the
+     * standard output.
+     *
+     * @param state   the initial state
+     * @param indexer the perfect hash mapping states to dense indices
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @see #solve(State, StateIndexer)
+     */
+    public Optional<Node<T>> solveAndPrintSolution(State<T> state, StateIndexer<T> indexer) {
+        var solution = solve(state, indexer);
+        solution.ifPresentOrElse(
+                this::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided using a visited set created for this search, and it also prints
+     * the solution to the standard output.
+     *
+     * @param state             the initial state
+     * @param encoder           the encoder mapping states to unique
+     *                          {@code long} keys
+     * @param visitedSetFactory the factory creating the visited set
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @see #solve(State, StateEncoder, Supplier)
+     */
+    public Optional<Node<T>> solveAndPrintSolution(State<T> state, StateEncoder<T> encoder,
+            Supplier<? extends VisitedSet> visitedSetFactory) {
+        var solution = solve(state, encoder, visitedSetFactory);
+        solution.ifPresentOrElse(
+                this::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search run by this
+     * instance, i.e., the number of states whose children were generated.
+     *
+     * @return the number of states expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expandedCount;
+    }
+
     private void printPathTo(Node<T> node) {
-        node.getParent().ifPresent(this::printPathTo);
-        System.out.println(node);
+        node.getPath().forEach(System.out::println);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package solver;
+
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+/**
+ * A visited set backed by an open-addressing primitive hash set on the heap.
+ */
+public class HashVisitedSet implements VisitedSet {
+    private final LongHashSet keys = new LongHashSet();
+
+    @Override
+    public boolean add(long key) {
+        return keys.add(key);
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return keys.contains(key);
+    }
+
+    @Override
+    public long size() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() {
+        keys.clear();
+    }
+}
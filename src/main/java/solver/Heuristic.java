@@ -0,0 +1,45 @@
+package solver;
+
+import puzzle.State;
+
+/**
+ * Estimates the number of moves needed to solve a puzzle from a state.
+ * <p>
+ * Informed search algorithms only guarantee optimal solutions with
+ * admissible heuristics, i.e., heuristics that never overestimate the real
+ * number of moves needed.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+@FunctionalInterface
+public interface Heuristic<T> {
+
+    /**
+     * The estimate of a state from which the puzzle cannot be solved at all,
+     * which lets searches prune the state.
+     */
+    int UNSOLVABLE = Integer.MAX_VALUE;
+
+    /**
+     * Estimates the number of moves needed to solve the puzzle from the state
+     * provided.
+     *
+     * @param state the state to estimate
+     * @return a lower bound of the number of moves needed to solve the puzzle,
+     *         or {@link #UNSOLVABLE} if it cannot be solved from the state
+     */
+    int estimate(State<T> state);
+
+    /**
+     * Returns the heuristic that always estimates zero moves. It is admissible
+     * for every puzzle, but it provides no guidance at all.
+     *
+     * @param <T> represents the moves that can be applied to the states
+     * @return the zero heuristic
+     */
+    static <T> Heuristic<T> zero() {
+        return state -> 0;
+    }
+
+}
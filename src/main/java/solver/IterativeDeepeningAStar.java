@@ -0,0 +1,286 @@
+package solver;
+
+import puzzle.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+/**
+ * Implements the iterative deepening A* (IDA*) algorithm to solve puzzles.
+ * <p>
+ * The search runs depth-first iterations bounded by the estimated total cost
+ * {@code f = g + h}, and raises the bound to the smallest cost exceeding it
+ * after every unsuccessful iteration. Only the current path is kept in memory,
+ * so the memory usage is proportional to the solution depth instead of the
+ * number of visited states. The solution is optimal if the heuristic is
+ * admissible.
+ * </p>
+ * <p>
+ * The algorithm works on any {@link State}, including the
+ * {@code TwoPhaseActionState} of the SpinHex puzzle. The states of a
+ * {@link ReversibleState} are not cloned: the search makes and undoes the
+ * moves on a single copy of the initial state, and only builds the nodes of
+ * the solution found.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+public class IterativeDeepeningAStar<T> {
+
+    private static final int FOUND = -1;
+
+    private final Heuristic<T> heuristic;
+    private final int maxDepth;
+    private final MovePruner<T> pruner;
+    private Node<T> solution;
+    private long expandedCount;
+    private final List<T> path = new ArrayList<>();
+    private final IntArrayList pathHashes = new IntArrayList();
+
+    /**
+     * Creates an {@code IterativeDeepeningAStar} guided by the heuristic
+     * provided, without a depth limit.
+     *
+     * @param heuristic the heuristic estimating the number of moves left
+     */
+    public IterativeDeepeningAStar(Heuristic<T> heuristic) {
+        this(heuristic, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an {@code IterativeDeepeningAStar} guided by the heuristic
+     * provided, which gives up once the bound exceeds the depth limit.
+     * Without a limit, the search never terminates on unsolvable puzzles.
+     *
+     * @param heuristic the heuristic estimating the number of moves left
+     * @param maxDepth  the length of the longest solution to search for
+     */
+    public IterativeDeepeningAStar(Heuristic<T> heuristic, int maxDepth) {
+        this(heuristic, maxDepth, MovePruner.none());
+    }
+
+    /**
+     * Creates an {@code IterativeDeepeningAStar} guided by the heuristic
+     * provided, which skips the moves pruned by the automaton provided, and
+     * gives up once the bound exceeds the depth limit. Since the search does
+     * not detect duplicate states, the automaton may prune every redundant
+     * sequence, as long as an equivalent sequence is allowed.
+     *
+     * @param heuristic the heuristic estimating the number of moves left
+     * @param maxDepth  the length of the longest solution to search for
+     * @param pruner    the move pruning automaton
+     */
+    public IterativeDeepeningAStar(Heuristic<T> heuristic, int maxDepth, MovePruner<T> pruner) {
+        this.heuristic = heuristic;
+        this.maxDepth = maxDepth;
+        this.pruner = pruner;
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided.
+     *
+     * @param state the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found within the
+     *         depth limit
+     */
+    public Optional<Node<T>> solve(State<T> state) {
+        expandedCount = 0;
+        if (state instanceof ReversibleState<T> reversible) {
+            return solveInPlace(reversible);
+        }
+        var start = new Node<>(state);
+        var bound = heuristic.estimate(state);
+        solution = null;
+        while (bound <= maxDepth) {
+            var next = search(start, 0, bound, pruner.getInitialState());
+            if (next == FOUND) {
+                var result = solution;
+                solution = null;
+                return Optional.of(result);
+            }
+            if (next == Integer.MAX_VALUE) {
+                break;
+            }
+            bound = next;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Searches for the shortest solution for the puzzle starting from the state
+     * provided, and it also prints the solution to the standard output.
+     *
+     * @param state the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found within the
+     *         depth limit
+     */
+    public Optional<Node<T>> solveAndPrintSolution(State<T> state) {
+        var result = solve(state);
+        result.ifPresentOrElse(
+                this::printPathTo,
+                () -> System.out.println("No solution found"));
+        return result;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search run by this
+     * instance, i.e., the number of states whose children were generated.
+     *
+     * @return the number of states expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expandedCount;
+    }
+
+    private int search(Node<T> node, int depth, int bound, int pruningState) {
+        var state = node.getState();
+        var estimate = heuristic.estimate(state);
+        if (estimate == Heuristic.UNSOLVABLE) {
+            return Integer.MAX_VALUE;
+        }
+        var cost = depth + estimate;
+        if (cost > bound) {
+            return cost;
+        }
+        if (state.isSolved()) {
+            solution = node;
+            return FOUND;
+        }
+        expandedCount++;
+        var min = Integer.MAX_VALUE;
+        for (T move : state.getLegalMoves()) {
+            var nextPruningState = pruner.next(pruningState, move);
+            if (nextPruningState == MovePruner.PRUNED) {
+                continue;
+            }
+            var nextState = state.clone();
+            nextState.makeMove(move);
+            if (isOnPath(node, nextState)) {
+                continue;
+            }
+            var next = search(new Node<>(nextState, node, move), depth + 1, bound, nextPruningState);
+            if (next == FOUND) {
+                return FOUND;
+            }
+            min = Math.min(min, next);
+        }
+        return min;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<Node<T>> solveInPlace(ReversibleState<T> state) {
+        var current = (ReversibleState<T>) state.clone();
+        var bound = heuristic.estimate(current);
+        try {
+            while (bound <= maxDepth) {
+                path.clear();
+                pathHashes.clear();
+                pathHashes.add(current.hashCode());
+                var next = searchInPlace(current, 0, bound, pruner.getInitialState());
+                if (next == FOUND) {
+                    var node = new Node<>(state);
+                    for (T move : path) {
+                        var nextState = node.getState().clone();
+                        nextState.makeMove(move);
+                        node = new Node<>(nextState, node, move);
+                    }
+                    return Optional.of(node);
+                }
+                if (next == Integer.MAX_VALUE) {
+                    break;
+                }
+                bound = next;
+            }
+            return Optional.empty();
+        } finally {
+            path.clear();
+            pathHashes.clear();
+        }
+    }
+
+    private int searchInPlace(ReversibleState<T> state, int depth, int bound, int pruningState) {
+        var estimate = heuristic.estimate(state);
+        if (estimate == Heuristic.UNSOLVABLE) {
+            return Integer.MAX_VALUE;
+        }
+        var cost = depth + estimate;
+        if (cost > bound) {
+            return cost;
+        }
+        if (state.isSolved()) {
+            return FOUND;
+        }
+        expandedCount++;
+        var min = Integer.MAX_VALUE;
+        for (T move : state.getLegalMoves()) {
+            var nextPruningState = pruner.next(pruningState, move);
+            if (nextPruningState == MovePruner.PRUNED) {
+                continue;
+            }
+            state.makeMove(move);
+            var hash = state.hashCode();
+            if (!isOnPath(state, move, hash)) {
+                path.add(move);
+                pathHashes.add(hash);
+                var next = searchInPlace(state, depth + 1, bound, nextPruningState);
+                if (next == FOUND) {
+                    return FOUND;
+                }
+                path.removeLast();
+                pathHashes.removeAtIndex(pathHashes.size() - 1);
+                min = Math.min(min, next);
+            }
+            state.undoMove(move);
+        }
+        return min;
+    }
+
+    /**
+     * Checks whether the state reached by a move equals a state on the current
+     * path. Only states having the same hash code are compared, by undoing the
+     * moves of the path on a copy of the state.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean isOnPath(ReversibleState<T> state, T move, int hash) {
+        ReversibleState<T> ancestor = null;
+        var ancestorDepth = pathHashes.size();
+        for (var depth = pathHashes.size() - 1; depth >= 0; depth--) {
+            if (pathHashes.get(depth) != hash) {
+                continue;
+            }
+            if (ancestor == null) {
+                ancestor = (ReversibleState<T>) state.clone();
+                ancestor.undoMove(move);
+                ancestorDepth--;
+            }
+            while (ancestorDepth > depth) {
+                ancestorDepth--;
+                ancestor.undoMove(path.get(ancestorDepth));
+            }
+            if (ancestor.equals(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOnPath(Node<T> node, State<T> state) {
+        for (var current = node; current != null; current = current.getParent().orElse(null)) {
+            if (current.getState().equals(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void printPathTo(Node<T> node) {
+        node.getPath().forEach(System.out::println);
+    }
+
+}
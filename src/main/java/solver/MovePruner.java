@@ -0,0 +1,110 @@
+package solver;
+
+import java.util.ArrayList;
+
+/**
+ * A finite automaton over move sequences, which tells the solvers the moves
+ * that are redundant after the moves made so far.
+ * <p>
+ * A move sequence is redundant if another sequence, which is not longer,
+ * transforms every state the same way, e.g., a move followed by its inverse.
+ * Solvers keep the state of the automaton along every path, and skip the
+ * moves for which {@link #next(int, Object)} returns {@link #PRUNED}, reducing
+ * the effective branching factor.
+ * </p>
+ * <p>
+ * The state of the automaton after a sequence only depends on the last
+ * {@link #getHistoryLength()} moves, so it can also be recovered from the last
+ * moves of a path, see {@link #stateOf(Node)}.
+ * </p>
+ * <p>
+ * Depth-first solvers without duplicate detection may skip every redundant
+ * sequence, as long as one of the equivalent sequences is allowed. Solvers
+ * detecting duplicate states, e.g., breadth-first searches, may only skip
+ * sequences having a strictly shorter equivalent, since the states reached by
+ * those have always been visited already, otherwise the state kept by the
+ * duplicate detection may have a different history than the path the
+ * automaton allows.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+public interface MovePruner<T> {
+
+    /**
+     * The state returned by {@link #next(int, Object)} for redundant moves.
+     */
+    int PRUNED = -1;
+
+    /**
+     * {@return the state of the automaton before any move}
+     */
+    int getInitialState();
+
+    /**
+     * Returns the state of the automaton after a move.
+     *
+     * @param state the state of the automaton before the move
+     * @param move  the move
+     * @return the state after the move, or {@link #PRUNED} if the move is
+     *         redundant after the moves leading to {@code state}
+     */
+    int next(int state, T move);
+
+    /**
+     * {@return the number of the last moves the state of the automaton depends
+     * on}
+     */
+    int getHistoryLength();
+
+    /**
+     * Returns the state of the automaton at a node, replaying the last moves
+     * of the path to the node.
+     *
+     * @param node the node
+     * @return the state of the automaton at the node, or the initial state if
+     *         the last moves are redundant, e.g., the path was not built using
+     *         this automaton
+     */
+    default int stateOf(Node<T> node) {
+        var moves = new ArrayList<T>(getHistoryLength());
+        for (var current = node; moves.size() < getHistoryLength() && current.getParent().isPresent();
+                current = current.getParent().get()) {
+            moves.add(current.getMove().orElseThrow());
+        }
+        var state = getInitialState();
+        for (var move : moves.reversed()) {
+            state = next(state, move);
+            if (state == PRUNED) {
+                return getInitialState();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns the automaton allowing every move sequence.
+     *
+     * @param <T> represents the moves that can be applied to the states
+     * @return the automaton pruning nothing
+     */
+    static <T> MovePruner<T> none() {
+        return new MovePruner<>() {
+            @Override
+            public int getInitialState() {
+                return 0;
+            }
+
+            @Override
+            public int next(int state, T move) {
+                return 0;
+            }
+
+            @Override
+            public int getHistoryLength() {
+                return 0;
+            }
+        };
+    }
+
+}
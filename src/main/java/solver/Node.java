@@ -2,7 +2,9 @@ package solver;
 
 import puzzle.State;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -69,6 +71,22 @@ public class Node<T> {
         return Optional.ofNullable(move);
     }
 
+    /**
+     * Returns the nodes along the path from the root to this node, walking the
+     * parent references iteratively, so arbitrarily long paths do not exhaust
+     * the stack.
+     *
+     * @return the nodes of the path, starting with the root and ending with
+     *         this node
+     */
+    public List<Node<T>> getPath() {
+        var path = new ArrayList<Node<T>>();
+        for (var node = this; node != null; node = node.parent) {
+            path.add(node);
+        }
+        return path.reversed();
+    }
+
     /**
      * Expands the node by generating all possible next states from the
      * current state.
@@ -76,8 +94,23 @@ public class Node<T> {
      * @return a set of nodes representing the next states
      */
     public Set<Node<T>> expand() {
+        return expand(MovePruner.none());
+    }
+
+    /**
+     * Expands the node by generating the next states reached by the moves the
+     * pruning automaton allows after the path to the node.
+     *
+     * @param pruner the move pruning automaton
+     * @return a set of nodes representing the next states
+     */
+    public Set<Node<T>> expand(MovePruner<T> pruner) {
+        var pruningState = pruner.stateOf(this);
         Set<Node<T>> nextStates = new HashSet<>();
         for (T move : state.getLegalMoves()) {
+            if (pruner.next(pruningState, move) == MovePruner.PRUNED) {
+                continue;
+            }
             var newState = state.clone();
             newState.makeMove(move);
             nextStates.add(new Node<>(newState, this, move));
@@ -0,0 +1,161 @@
+package solver;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * A visited set stored outside the Java heap, in a {@link MemorySegment}
+ * allocated from a confined {@link Arena}.
+ * <p>
+ * Keys are stored in an open-addressing table with linear probing. Zero marks
+ * an empty slot, so the key zero is tracked by a separate flag. When the table
+ * exceeds its load factor, it is rehashed into a table of twice the capacity
+ * allocated from a new arena, and the arena of the old table is closed at once.
+ * Since the table is never scanned by the garbage collector, even a visited set
+ * of tens of millions of states does not need a large heap, and
+ * {@link #close()} releases the memory deterministically. The set must only be
+ * used by the thread that created it.
+ * </p>
+ * <p>
+ * Native segments count against {@code -XX:MaxDirectMemorySize}, which
+ * defaults to the maximum heap size, so a small heap needs an explicit limit,
+ * e.g., {@code -Xmx64m -XX:MaxDirectMemorySize=1g} for the 46,558,512 states of
+ * the original board, which take a table of 512 MiB.
+ * </p>
+ */
+public class OffHeapVisitedSet implements VisitedSet {
+    private static final int DEFAULT_EXPECTED_SIZE = 1 << 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private Arena arena;
+    private MemorySegment table;
+    private long mask;
+    private long threshold;
+    private long size;
+    private boolean containsZero;
+
+    /**
+     * Creates an empty visited set with a default initial capacity.
+     */
+    public OffHeapVisitedSet() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Creates an empty visited set that can hold the specified number of keys
+     * without being rehashed.
+     *
+     * @param expectedSize the expected number of keys
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OffHeapVisitedSet(long expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Invalid expected size: " + expectedSize);
+        }
+        final long minimumCapacity = Math.max(2, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR));
+        allocate(Long.highestOneBit(minimumCapacity - 1) << 1);
+    }
+
+    private void allocate(long capacity) {
+        arena = Arena.ofConfined();
+        // segments allocated by an arena are zeroed, i.e., every slot is empty
+        table = arena.allocate(capacity * Long.BYTES, Long.BYTES);
+        mask = capacity - 1;
+        threshold = (long) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    @Override
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if (!insert(table, mask, key)) {
+            return false;
+        }
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    private static boolean insert(MemorySegment table, long mask, long key) {
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final long current = table.getAtIndex(ValueLayout.JAVA_LONG, slot);
+            if (current == key) {
+                return false;
+            }
+            if (current == 0) {
+                table.setAtIndex(ValueLayout.JAVA_LONG, slot, key);
+                return true;
+            }
+        }
+    }
+
+    private void rehash() {
+        final var oldArena = arena;
+        final var oldTable = table;
+        final long oldCapacity = mask + 1;
+        allocate(oldCapacity << 1);
+        try (oldArena) {
+            for (long slot = 0; slot < oldCapacity; slot++) {
+                final long key = oldTable.getAtIndex(ValueLayout.JAVA_LONG, slot);
+                if (key != 0) {
+                    insert(table, mask, key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final long current = table.getAtIndex(ValueLayout.JAVA_LONG, slot);
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots of the table, i.e., the number of keys it
+     * can hold is this times the load factor.
+     *
+     * @return the number of slots
+     */
+    public long capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Releases the off-heap table. The set must not be used afterward.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
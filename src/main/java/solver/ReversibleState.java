@@ -0,0 +1,32 @@
+package solver;
+
+import puzzle.State;
+
+/**
+ * A state whose moves can be undone in place.
+ * <p>
+ * {@link State#makeMove(Object)} already changes the state in place, but
+ * exploring a child without losing the parent requires a {@link State#clone()}
+ * per edge. A reversible state also restores the state before a move exactly,
+ * so depth-first search engines can walk the whole search tree on a single
+ * mutable state, making and undoing moves as they descend and backtrack.
+ * </p>
+ * <p>
+ * Such engines keep iterating over the set returned by
+ * {@link State#getLegalMoves()} while making and undoing moves, so the set
+ * must not be a view affected by the moves.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+public interface ReversibleState<T> extends State<T> {
+
+    /**
+     * Undoes a move in place, restoring the state the move was made from.
+     *
+     * @param move the move to undo, which must be the last move made on the
+     *             state and not undone yet
+     */
+    void undoMove(T move);
+
+}
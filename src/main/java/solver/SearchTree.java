@@ -0,0 +1,184 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A search tree over packed states, stored as parallel primitive arrays
+ * instead of chains of {@link Node} objects.
+ * <p>
+ * Every node is identified by its index, in the order the nodes were added,
+ * and consists of a packed state, the index of its parent, and the index of
+ * the move that created the state from the parent. A node therefore takes 13
+ * bytes, and the tree is three objects regardless of its size. Since the
+ * indices follow insertion order, a breadth-first search can also use the
+ * tree as its queue, the frontier being the nodes not expanded yet.
+ * </p>
+ */
+public class SearchTree {
+    /**
+     * The parent index of the root nodes.
+     */
+    public static final int NO_PARENT = -1;
+
+    /**
+     * The move index of the root nodes.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The largest move index a node can store.
+     */
+    public static final int MAX_MOVE = Byte.MAX_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] states;
+    private int[] parents;
+    private byte[] moves;
+    private int size;
+
+    /**
+     * Creates an empty tree with a default initial capacity.
+     */
+    public SearchTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty tree that can hold the specified number of nodes without
+     * growing.
+     *
+     * @param initialCapacity the initial number of nodes
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public SearchTree(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid initial capacity: " + initialCapacity);
+        }
+        states = new long[initialCapacity];
+        parents = new int[initialCapacity];
+        moves = new byte[initialCapacity];
+    }
+
+    /**
+     * Adds a root node, i.e., a node without a parent.
+     *
+     * @param state the packed state of the node
+     * @return the index of the node
+     * @throws IllegalStateException if the tree is full
+     */
+    public int addRoot(long state) {
+        return append(state, NO_PARENT, (byte) NO_MOVE);
+    }
+
+    /**
+     * Adds a node with a parent node.
+     *
+     * @param state  the packed state of the node
+     * @param parent the index of the parent node
+     * @param move   the index of the move that created the state from the
+     *               parent, from 0 to {@value #MAX_MOVE}
+     * @return the index of the node
+     * @throws IndexOutOfBoundsException if the parent is not a node of the tree
+     * @throws IllegalArgumentException  if the move index is out of range
+     * @throws IllegalStateException     if the tree is full
+     */
+    public int add(long state, int parent, int move) {
+        checkIndex(parent);
+        if (move < 0 || move > MAX_MOVE) {
+            throw new IllegalArgumentException("Invalid move: " + move);
+        }
+        return append(state, parent, (byte) move);
+    }
+
+    private int append(long state, int parent, byte move) {
+        if (size == states.length) {
+            grow();
+        }
+        states[size] = state;
+        parents[size] = parent;
+        moves[size] = move;
+        return size++;
+    }
+
+    private void grow() {
+        if (size == MAX_CAPACITY) {
+            throw new IllegalStateException("Search tree is full");
+        }
+        final int capacity = (int) Math.min(MAX_CAPACITY, Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+        states = Arrays.copyOf(states, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+    }
+
+    /**
+     * {@return the number of nodes of the tree}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the packed state of a node.
+     *
+     * @param node the index of the node
+     * @return the packed state
+     */
+    public long getState(int node) {
+        return states[checkIndex(node)];
+    }
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param node the index of the node
+     * @return the index of the parent, or {@value #NO_PARENT} for a root node
+     */
+    public int getParent(int node) {
+        return parents[checkIndex(node)];
+    }
+
+    /**
+     * Returns the move that created the state of a node from its parent.
+     *
+     * @param node the index of the node
+     * @return the index of the move, or {@value #NO_MOVE} for a root node
+     */
+    public int getMove(int node) {
+        return moves[checkIndex(node)];
+    }
+
+    /**
+     * Returns the number of moves from the root to a node.
+     *
+     * @param node the index of the node
+     * @return the depth of the node
+     */
+    public int getDepth(int node) {
+        int depth = 0;
+        for (int current = parents[checkIndex(node)]; current != NO_PARENT; current = parents[current]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the moves along the path from the root to a node.
+     *
+     * @param node the index of the node
+     * @return the indices of the moves, starting from the root
+     */
+    public int[] getPathTo(int node) {
+        final var path = new int[getDepth(node)];
+        for (int current = node, i = path.length - 1; i >= 0; current = parents[current], i--) {
+            path[i] = moves[current];
+        }
+        return path;
+    }
+
+    private int checkIndex(int node) {
+        return Objects.checkIndex(node, size);
+    }
+}
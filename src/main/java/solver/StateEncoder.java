@@ -0,0 +1,27 @@
+package solver;
+
+import puzzle.State;
+
+/**
+ * Maps the states of a puzzle to compact {@code long} keys.
+ * <p>
+ * An encoder must be injective over the states reachable during a search,
+ * i.e., two states must be mapped to the same key if and only if they are
+ * equal. This allows solvers to keep track of visited states using primitive
+ * collections instead of the state objects themselves.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+@FunctionalInterface
+public interface StateEncoder<T> {
+
+    /**
+     * Encodes the state provided.
+     *
+     * @param state the state to encode
+     * @return the key of the state
+     */
+    long encode(State<T> state);
+
+}
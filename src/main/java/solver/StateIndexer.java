@@ -0,0 +1,22 @@
+package solver;
+
+/**
+ * A perfect hash of the states of a puzzle, mapping every reachable state to
+ * a dense index in {@code [0, size())}.
+ * <p>
+ * Since the indices are dense, solvers can keep track of visited states in a
+ * bitset of {@code size()} bits instead of a hash set, which gives a memory
+ * bound known before the search starts.
+ * </p>
+ *
+ * @param <T> represents the moves that can be applied to the states
+ */
+public interface StateIndexer<T> extends StateEncoder<T> {
+
+    /**
+     * {@return the number of indices, i.e., an exclusive upper bound of the
+     * values returned by {@link #encode(puzzle.State)}}
+     */
+    long size();
+
+}
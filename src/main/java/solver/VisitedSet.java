@@ -0,0 +1,40 @@
+package solver;
+
+/**
+ * A set of visited states, identified by the {@code long} keys produced by a
+ * {@link StateEncoder}.
+ * <p>
+ * Implementations may hold resources outside the Java heap, which are
+ * released by {@link #close()}, so a visited set should be used in a
+ * try-with-resources statement.
+ * </p>
+ */
+public interface VisitedSet extends AutoCloseable {
+    /**
+     * Adds a key to the set.
+     *
+     * @param key the key of the state
+     * @return {@code true} if the key was not in the set yet, {@code false}
+     *         otherwise
+     */
+    boolean add(long key);
+
+    /**
+     * Checks whether a key is in the set.
+     *
+     * @param key the key of the state
+     * @return {@code true} if the key is in the set, {@code false} otherwise
+     */
+    boolean contains(long key);
+
+    /**
+     * {@return the number of keys in the set}
+     */
+    long size();
+
+    /**
+     * Releases the resources of the set. The set must not be used afterward.
+     */
+    @Override
+    void close();
+}
@@ -1,12 +1,28 @@
 package spinhex;
 
 import puzzle.solver.BreadthFirstSearch;
+import solver.BidirectionalSearch;
 import solver.BreadthFirstSearchModified;
+import solver.IterativeDeepeningAStar;
+import solver.OffHeapVisitedSet;
 import spinhex.model.AxialPosition;
+import spinhex.model.DistanceDatabase;
 import spinhex.model.HexColor;
 import spinhex.model.Rotation;
 import spinhex.model.SpinHexModel;
 import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.ExternalMemoryBreadthFirstSearch;
+import spinhex.solver.MisplacedHexesHeuristic;
+import spinhex.solver.PackedBreadthFirstSearch;
+import spinhex.solver.ParallelBreadthFirstSearch;
+import spinhex.solver.PartitionedBreadthFirstSearch;
+import spinhex.solver.PatternDatabase;
+import spinhex.solver.SymmetricBreadthFirstSearch;
+import spinhex.solver.TwoBitBreadthFirstSearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class BFS {
     static Preset closerBoardConfig = new Preset(new byte[][] {
@@ -38,7 +54,7 @@ public class BFS {
     });
 
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("SpinHex BFS Solver (refer to performance_analysis.md)");
         System.out.println("""
                 Select a board configuration:
@@ -57,8 +73,21 @@ public class BFS {
                 Select a search algorithm:
                 \t1. Original BFS
                 \t2. Modified BFS
+                \t3. Modified BFS (packed visited set)
+                \t4. Modified BFS (ranked visited bitset)
+                \t5. Bidirectional BFS
+                \t6. IDA* (misplaced hexes heuristic)
+                \t7. IDA* (pattern database heuristic)
+                \t8. Distance database lookup (built once into spinhex.dist, ~2.5 min)
+                \t9. Two-bit BFS sweep of the whole state space
+                \t10. Parallel BFS
+                \t11. Partitioned BFS (4 worker processes)
+                \t12. External-memory BFS
+                \t13. Modified BFS (off-heap visited set)
+                \t14. Packed BFS (struct-of-arrays search tree)
+                \t15. Packed BFS (symmetry-reduced)
                 """);
-        System.out.print("Enter your choice (1 or 2): ");
+        System.out.print("Enter your choice (1-15): ");
         input = new java.util.Scanner(System.in).nextInt();
         var startTime = System.currentTimeMillis();
         switch (input) {
@@ -70,6 +99,89 @@ public class BFS {
             case 2:
                 new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
                         .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 3:
+                new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard),
+                                SpinHexModel.packedEncoder());
+                break;
+
+            case 4:
+                var model = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                        .solveAndPrintSolution(model, model.rankedIndexer());
+                break;
+
+            case 5:
+                var startModel = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                new BidirectionalSearch<>(SpinHexModel::inverseOf)
+                        .solveAndPrintSolution(startModel, startModel.getSolvedModel());
+                break;
+
+            case 6:
+                new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic())
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 7:
+                var pdbModel = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                new IterativeDeepeningAStar<>(PatternDatabase.build(pdbModel))
+                        .solveAndPrintSolution(pdbModel);
+                break;
+
+            case 8:
+                var dbModel = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                dbModel.setDistanceDatabase(loadOrBuildDistanceDatabase(dbModel));
+                System.out.println("Distance to solution: " + dbModel.distanceToSolution());
+                dbModel.getDistanceDatabase().solve(dbModel.getBoard()).forEach(System.out::println);
+                break;
+
+            case 9:
+                var sweepModel = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                var result = new TwoBitBreadthFirstSearch(sweepModel.getSolution()).sweep();
+                for (int depth = 0; depth < result.depthCounts().length; depth++) {
+                    System.out.println("Depth " + depth + ": " + result.depthCounts()[depth]);
+                }
+                System.out.println("God's number: " + result.radius());
+                System.out.println("Reachable states: " + result.reachable());
+                System.out.println("Unreachable states: " + result.unreachable());
+                break;
+
+            case 10:
+                new ParallelBreadthFirstSearch()
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 11:
+                new PartitionedBreadthFirstSearch(4, Files.createTempDirectory("spinhex-spool"),
+                        PartitionedBreadthFirstSearch.WorkerLauncher.localProcesses())
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 12:
+                new ExternalMemoryBreadthFirstSearch(Files.createTempDirectory("spinhex-layers"))
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 13:
+                var offHeapModel = new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard);
+                var stateCount = offHeapModel.rankedIndexer().size();
+                new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                        .solveAndPrintSolution(offHeapModel, SpinHexModel.packedEncoder(),
+                                () -> new OffHeapVisitedSet(stateCount));
+                break;
+
+            case 14:
+                new PackedBreadthFirstSearch()
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
+            case 15:
+                new SymmetricBreadthFirstSearch()
+                        .solveAndPrintSolution(new SpinHexModel(boardConfig.startingBoard, boardConfig.targetBoard));
+                break;
+
             default:
                 throw new IllegalStateException("Unexpected value: " + input);
         }
@@ -77,5 +189,18 @@ public class BFS {
         System.out.println("Time taken: " + (endTime - startTime) + " ms");
     }
 
+    private static DistanceDatabase loadOrBuildDistanceDatabase(SpinHexModel model) throws IOException {
+        var path = Path.of("spinhex.dist");
+        if (Files.exists(path)) {
+            var database = DistanceDatabase.load(path);
+            if (database.matches(model)) {
+                return database;
+            }
+        }
+        var database = DistanceDatabase.build(model);
+        database.write(path);
+        return database;
+    }
+
     record Preset(byte[][] startingBoard, byte[][] targetBoard){}
 }
@@ -0,0 +1,36 @@
+package spinhex;
+
+import spinhex.solver.BatchSolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Solves the puzzles of a JSON Lines file with a {@link BatchSolver}.
+ * <p>
+ * Usage:
+ * {@code Batch <input.jsonl> <output.jsonl> [engine] [parallelism] [maxDepth]},
+ * where the engine defaults to {@code PACKED_BFS}, the parallelism to the
+ * number of available processors, and the depth limit of {@code IDA_STAR} to
+ * {@link BatchSolver#DEFAULT_MAX_DEPTH}.
+ * </p>
+ */
+public class Batch {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: Batch <input.jsonl> <output.jsonl> [engine] [parallelism] [maxDepth]");
+            System.err.println("Engines: " + Arrays.toString(BatchSolver.Engine.values()));
+            System.exit(1);
+        }
+        var engine = args.length > 2 ? BatchSolver.Engine.valueOf(args[2].toUpperCase(Locale.ROOT))
+                : BatchSolver.Engine.PACKED_BFS;
+        var parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        var maxDepth = args.length > 4 ? Integer.parseInt(args[4]) : BatchSolver.DEFAULT_MAX_DEPTH;
+        var startTime = System.currentTimeMillis();
+        var count = new BatchSolver(engine, parallelism, maxDepth).solve(Path.of(args[0]), Path.of(args[1]));
+        var endTime = System.currentTimeMillis();
+        System.out.println("Processed " + count + " puzzles with " + engine + " in " + (endTime - startTime) + " ms");
+    }
+}
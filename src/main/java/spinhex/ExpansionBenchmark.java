@@ -0,0 +1,57 @@
+package spinhex;
+
+import spinhex.model.PackedSpinHex;
+import spinhex.model.SpinHexModel;
+import spinhex.solver.BatchExpander;
+import spinhex.solver.ScalarBatchExpander;
+
+import java.util.Random;
+
+/**
+ * Compares the scalar and the vectorized batch expansion of packed boards.
+ * Build it with the {@code vector} Maven profile and run it with
+ * {@code --add-modules jdk.incubator.vector}, otherwise both measurements use
+ * the scalar expander.
+ */
+public class ExpansionBenchmark {
+    private static final int BATCH_SIZE = 1 << 16;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 1000;
+
+    public static void main(String[] args) {
+        var kernel = new PackedSpinHex(new SpinHexModel().getSolution());
+        var boards = randomBoards(kernel);
+        var children = new long[BATCH_SIZE * kernel.size()];
+
+        var scalar = new ScalarBatchExpander(kernel);
+        var best = BatchExpander.create(kernel);
+        System.out.println("Selected expander: " + best.getClass().getSimpleName());
+        measure("Warm-up", scalar, boards, children, WARMUP_ROUNDS);
+        measure("Warm-up", best, boards, children, WARMUP_ROUNDS);
+        measure("Scalar", scalar, boards, children, ROUNDS);
+        measure(best.getClass().getSimpleName(), best, boards, children, ROUNDS);
+    }
+
+    private static long[] randomBoards(PackedSpinHex kernel) {
+        var random = new Random(42);
+        var boards = new long[BATCH_SIZE];
+        long board = kernel.pack(new SpinHexModel().getBoard());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            board = kernel.apply(random.nextInt(kernel.size()), board);
+            boards[i] = board;
+        }
+        return boards;
+    }
+
+    private static void measure(String name, BatchExpander expander, long[] boards, long[] children, int rounds) {
+        long checksum = 0;
+        var startTime = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            expander.expand(boards, BATCH_SIZE, children);
+            checksum += children[round % children.length];
+        }
+        var elapsed = System.nanoTime() - startTime;
+        var childrenPerSecond = (double) rounds * BATCH_SIZE * expander.getMoveCount() / elapsed * 1e9;
+        System.out.printf("%s: %.1f M children/s (checksum %d)%n", name, childrenPerSecond / 1e6, checksum);
+    }
+}
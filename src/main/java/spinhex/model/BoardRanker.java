@@ -0,0 +1,236 @@
+package spinhex.model;
+
+/**
+ * Perfect hash over the boards that share the same multiset of colors.
+ * <p>
+ * Rotations only permute the hexes of the board, so every reachable board is
+ * a permutation of the same multiset of colors. For a board of {@code n}
+ * cells having {@code k_1, k_2, ..., k_m} hexes of each color there are
+ * exactly {@code n! / (k_1! * k_2! * ... * k_m!)} such permutations, and this
+ * class maps each of them to a dense rank in {@code [0, size())} and back,
+ * using the lexicographic order of the cell values.
+ * </p>
+ * <p>
+ * For the original board (6 red, 6 green and 7 blue hexes) the ranks fall into
+ * {@code [0, 46,558,512)}, so a visited table needs only one bit per rank.
+ * </p>
+ */
+public final class BoardRanker {
+    private static final int MAX_COUNT_STATES = 1 << 22;
+
+    private final BoardTopology topology;
+    private final int cellCount;
+    private final int colors;
+    private final int[] colorCounts;
+    private final int fullState;
+    private final int[] nextState;
+    // number of permutations of the remaining multiset starting with a smaller color
+    private final long[] rankOffset;
+    private final long[] permutations;
+
+    /**
+     * Constructs a ranker for the boards having the same shape and the same
+     * number of hexes of each color as the board provided.
+     * <p>
+     * The remaining color counts while scanning a board form a small state
+     * space, so the number of permutations of every remaining multiset is
+     * precomputed, and ranking a board takes one table lookup per cell.
+     * </p>
+     *
+     * @param board The board whose color counts define the ranked permutations
+     * @throws IllegalArgumentException if the board contains negative values or
+     *                                  the number of permutations is too large
+     *                                  to be ranked with {@code long} values
+     */
+    public BoardRanker(HexagonalGrid board) {
+        topology = board.getTopology();
+        cellCount = board.getCellCount();
+        int maxValue = -1;
+        for (int i = 0; i < cellCount; i++) {
+            if (board.getCell(i) < 0) {
+                throw new IllegalArgumentException("Negative cell value: " + board.getCell(i));
+            }
+            maxValue = Math.max(maxValue, board.getCell(i));
+        }
+        colors = maxValue + 1;
+        colorCounts = new int[colors];
+        for (int i = 0; i < cellCount; i++) {
+            colorCounts[board.getCell(i)]++;
+        }
+
+        final int[] strides = new int[colors];
+        int states = 1;
+        for (int color = 0; color < colors; color++) {
+            strides[color] = states;
+            states = Math.multiplyExact(states, colorCounts[color] + 1);
+            if (states > MAX_COUNT_STATES) {
+                throw new IllegalArgumentException("Too many color combinations to rank");
+            }
+        }
+        fullState = states - 1;
+        permutations = new long[states];
+        nextState = new int[states * colors];
+        rankOffset = new long[states * colors];
+        try {
+            for (int state = 0; state < states; state++) {
+                long total = 0;
+                for (int color = 0; color < colors; color++) {
+                    final int index = state * colors + color;
+                    rankOffset[index] = total;
+                    if ((state / strides[color]) % (colorCounts[color] + 1) == 0) {
+                        nextState[index] = -1;
+                    } else {
+                        nextState[index] = state - strides[color];
+                        total = Math.addExact(total, permutations[nextState[index]]);
+                    }
+                }
+                // the empty multiset has exactly one (empty) permutation
+                permutations[state] = state == 0 ? 1 : total;
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many permutations to rank", e);
+        }
+    }
+
+    /**
+     * Returns the number of distinct boards, i.e., the number of ranks.
+     *
+     * @return The number of permutations of the color multiset
+     */
+    public long size() {
+        return permutations[fullState];
+    }
+
+    /**
+     * Returns the number of hexes of the specified color on the ranked boards.
+     *
+     * @param color The color to count
+     * @return The number of hexes of the color
+     */
+    public int getColorCount(byte color) {
+        return color >= 0 && color < colors ? colorCounts[color] : 0;
+    }
+
+    /**
+     * Checks whether a board is one of the ranked permutations, i.e., it has
+     * the same shape and the same number of hexes of each color.
+     *
+     * @param board The board to check
+     * @return {@code true} if the board can be ranked, {@code false} otherwise
+     */
+    public boolean canRank(HexagonalGrid board) {
+        if (board.getTopology() != topology) {
+            return false;
+        }
+        int state = fullState;
+        for (int i = 0; i < cellCount; i++) {
+            final int value = board.getCell(i);
+            if (value < 0 || value >= colors || nextState[state * colors + value] < 0) {
+                return false;
+            }
+            state = nextState[state * colors + value];
+        }
+        return true;
+    }
+
+    /**
+     * Computes the rank of a board.
+     *
+     * @param board The board to rank
+     * @return The rank of the board in {@code [0, size())}
+     * @throws IllegalArgumentException if the board has a different shape or a
+     *                                  different multiset of colors
+     */
+    public long rank(HexagonalGrid board) {
+        if (board.getTopology() != topology) {
+            throw new IllegalArgumentException("Board shape mismatch");
+        }
+        int state = fullState;
+        long rank = 0;
+        for (int i = 0; i < cellCount; i++) {
+            final int value = board.getCell(i);
+            if (value < 0 || value >= colors || nextState[state * colors + value] < 0) {
+                throw new IllegalArgumentException("Board has a different color multiset");
+            }
+            final int index = state * colors + value;
+            rank += rankOffset[index];
+            state = nextState[index];
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the rank of a board packed by {@link HexagonalGrid#pack()},
+     * without unpacking it.
+     *
+     * @param packed The packed board to rank
+     * @return The rank of the board in {@code [0, size())}
+     * @throws IllegalArgumentException if the packed board has a different
+     *                                  multiset of colors
+     * @throws IllegalStateException    if the boards have too many cells to be
+     *                                  packed
+     */
+    public long rankPacked(long packed) {
+        if (cellCount * HexagonalGrid.PACKED_BITS_PER_CELL > Long.SIZE) {
+            throw new IllegalStateException("Boards have too many cells to be packed: " + cellCount);
+        }
+        final long cellMask = (1L << HexagonalGrid.PACKED_BITS_PER_CELL) - 1;
+        int state = fullState;
+        long rank = 0;
+        for (int i = 0; i < cellCount; i++) {
+            final int value = (int) ((packed >>> (i * HexagonalGrid.PACKED_BITS_PER_CELL)) & cellMask);
+            if (value >= colors || nextState[state * colors + value] < 0) {
+                throw new IllegalArgumentException("Board has a different color multiset");
+            }
+            final int index = state * colors + value;
+            rank += rankOffset[index];
+            state = nextState[index];
+        }
+        return rank;
+    }
+
+    /**
+     * Reconstructs the board having the specified rank.
+     *
+     * @param rank The rank of the board
+     * @return A new board with the specified rank
+     * @throws IllegalArgumentException if the rank is out of range
+     */
+    public HexagonalGrid unrank(long rank) {
+        final var board = new HexagonalGrid(topology);
+        unrank(rank, board);
+        return board;
+    }
+
+    /**
+     * Overwrites the cells of a board with the board having the specified rank.
+     *
+     * @param rank  The rank of the board
+     * @param board The board to overwrite, which must have the ranked shape
+     * @throws IllegalArgumentException if the rank is out of range or the board
+     *                                  has a different shape
+     */
+    public void unrank(long rank, HexagonalGrid board) {
+        if (rank < 0 || rank >= size()) {
+            throw new IllegalArgumentException("Rank out of range: " + rank);
+        }
+        if (board.getTopology() != topology) {
+            throw new IllegalArgumentException("Board shape mismatch");
+        }
+        int state = fullState;
+        for (int i = 0; i < cellCount; i++) {
+            for (int value = 0; value < colors; value++) {
+                final int next = nextState[state * colors + value];
+                if (next < 0) {
+                    continue;
+                }
+                if (rank < permutations[next]) {
+                    board.setCell(i, (byte) value);
+                    state = next;
+                    break;
+                }
+                rank -= permutations[next];
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package spinhex.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The symmetries of the hexagonal board that leave a target board unchanged.
+ * <p>
+ * The hexagon has 12 symmetries, the six rotations by multiples of 60 degrees
+ * around the center and the six reflections, which map every cell to a cell
+ * and every pivot to a pivot. The symmetries preserving the colors of the
+ * target form a subgroup, and a board is exactly as far from the target as
+ * its images under the subgroup, since every move is mapped to a move as
+ * well. Searches can therefore store a single canonical representative of
+ * every orbit, the smallest packed encoding among the images, reducing the
+ * number of stored states by up to the order of the subgroup.
+ * </p>
+ * <p>
+ * Symmetries are stored as permutations of the storage indices: symmetry
+ * {@code g} moves the value of cell {@code i} to cell
+ * {@code getCellPermutation(g)[i]}. The first symmetry is the identity.
+ * Packed boards use the {@link HexagonalGrid#pack()} encoding.
+ * </p>
+ */
+public final class BoardSymmetries {
+    private static final int ROTATIONS = 6;
+
+    private final int cellCount;
+    private final int[][] permutations;
+
+    /**
+     * Finds the symmetries of the board preserving the specified target.
+     *
+     * @param target The target board
+     */
+    public BoardSymmetries(HexagonalGrid target) {
+        cellCount = target.getCellCount();
+        final int radius = target.getRadius();
+        final var symmetries = new ArrayList<int[]>();
+        for (int reflection = 0; reflection < 2; reflection++) {
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                final int[] permutation = permutationOf(target, radius, rotation, reflection == 1);
+                if (permutation != null && preserves(permutation, target)) {
+                    symmetries.add(permutation);
+                }
+            }
+        }
+        permutations = symmetries.toArray(int[][]::new);
+    }
+
+    /**
+     * Returns the cell permutation of a rotation, optionally preceded by a
+     * reflection, or {@code null} if it maps a cell out of the board.
+     */
+    private static int[] permutationOf(HexagonalGrid board, int radius, int rotation, boolean reflect) {
+        final var permutation = new int[board.getCellCount()];
+        for (int q = 0; q < board.getSize(); q++) {
+            for (int s = 0; s < board.getSize(); s++) {
+                if (!board.isInBounds(q, s)) {
+                    continue;
+                }
+                int dq = q - radius;
+                int ds = s - radius;
+                if (reflect) {
+                    final int swap = dq;
+                    dq = ds;
+                    ds = swap;
+                }
+                for (int k = 0; k < rotation; k++) {
+                    // rotates by 60 degrees clockwise, mapping each direction of
+                    // SpinHexModel.ADJACENT_DIRECTIONS to the next one
+                    final int rotated = dq + ds;
+                    ds = -dq;
+                    dq = rotated;
+                }
+                if (!board.isInBounds(radius + dq, radius + ds)) {
+                    return null;
+                }
+                permutation[board.indexOf(q, s)] = board.indexOf(radius + dq, radius + ds);
+            }
+        }
+        return permutation;
+    }
+
+    private static boolean preserves(int[] permutation, HexagonalGrid target) {
+        for (int i = 0; i < permutation.length; i++) {
+            if (target.getCell(permutation[i]) != target.getCell(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of symmetries preserving the target, including the
+     * identity.
+     *
+     * @return The order of the symmetry group
+     */
+    public int size() {
+        return permutations.length;
+    }
+
+    /**
+     * Returns the cell permutation of a symmetry.
+     *
+     * @param symmetry The index of the symmetry
+     * @return A copy of the permutation, mapping storage indices to storage
+     *         indices
+     */
+    public int[] getCellPermutation(int symmetry) {
+        return permutations[symmetry].clone();
+    }
+
+    /**
+     * Applies a symmetry to a board.
+     *
+     * @param symmetry The index of the symmetry
+     * @param board    The board to map
+     * @return The image of the board
+     * @throws IllegalArgumentException if the board has a different number of
+     *                                  cells
+     */
+    public HexagonalGrid apply(int symmetry, HexagonalGrid board) {
+        if (board.getCellCount() != cellCount) {
+            throw new IllegalArgumentException("Cell count mismatch: " + board.getCellCount());
+        }
+        final var image = board.clone();
+        final int[] permutation = permutations[symmetry];
+        for (int i = 0; i < cellCount; i++) {
+            image.setCell(permutation[i], board.getCell(i));
+        }
+        return image;
+    }
+
+    /**
+     * Applies a symmetry to a packed board.
+     *
+     * @param symmetry The index of the symmetry
+     * @param board    The packed board
+     * @return The image of the packed board
+     */
+    public long apply(int symmetry, long board) {
+        final int[] permutation = permutations[symmetry];
+        final long cellMask = (1L << HexagonalGrid.PACKED_BITS_PER_CELL) - 1;
+        long image = 0;
+        for (int i = 0; i < cellCount; i++) {
+            final long value = (board >>> (i * HexagonalGrid.PACKED_BITS_PER_CELL)) & cellMask;
+            image |= value << (permutation[i] * HexagonalGrid.PACKED_BITS_PER_CELL);
+        }
+        return image;
+    }
+
+    /**
+     * Returns the canonical representative of the orbit of a packed board,
+     * i.e., the smallest image of the board under the symmetries, compared as
+     * unsigned values.
+     *
+     * @param board The packed board
+     * @return The canonical packed board, equal for every board of the orbit
+     */
+    public long canonicalize(long board) {
+        long canonical = board;
+        for (int symmetry = 1; symmetry < permutations.length; symmetry++) {
+            final long image = apply(symmetry, board);
+            if (Long.compareUnsigned(image, canonical) < 0) {
+                canonical = image;
+            }
+        }
+        return canonical;
+    }
+
+    @Override
+    public String toString() {
+        return "BoardSymmetries" + Arrays.deepToString(permutations);
+    }
+}
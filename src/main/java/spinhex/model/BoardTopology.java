@@ -0,0 +1,443 @@
+package spinhex.model;
+
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The precomputed shape of a board, shared by every grid and model of that
+ * shape.
+ * <p>
+ * A shape is a set of cells within a square of axial coordinates, either the
+ * full hexagon of a given size (see {@link #of(int)}), or an arbitrary set of
+ * cells, e.g., a hexagon with holes, a triangle or a parallelogram, defined
+ * by a shape file (see {@link #parse(String)}). The topology maps the axial
+ * coordinates of the cells to dense storage indices, numbered row by row, and
+ * back, so the storage and the moves of the boards are proportional to the
+ * number of real cells, not to the bounding square. It also
+ * holds the storage indices of the six neighbors of every cell, in the order
+ * of {@link SpinHexModel#ADJACENT_DIRECTIONS}, and the pivots, i.e., the cells
+ * whose neighbors are all within the bounds of the board, with their
+ * clockwise and counterclockwise moves. All of them are computed once per
+ * shape, so bounds checks, index calculations and neighbor lookups are single
+ * array accesses.
+ * </p>
+ * <p>
+ * Topologies are immutable and interned, i.e., the factory methods return the
+ * same instance for the same shape, so shapes can be compared by identity.
+ * All of their fields are final, so they are safely published to, and can be
+ * read concurrently by, every thread.
+ * </p>
+ * <p>
+ * A shape file has one line per row of the bounding square, and one
+ * whitespace-separated token per column, {@value #CELL_TOKEN} for a cell and
+ * {@value #NO_CELL_TOKEN} for a position out of bounds. Shorter rows and
+ * missing rows are out of bounds, blank lines and the text after a
+ * {@code #} are ignored. For example, the original board is
+ * </p>
+ * <pre>
+ * . . o o o
+ * . o o o o
+ * o o o o o
+ * o o o o .
+ * o o o . .
+ * </pre>
+ */
+public final class BoardTopology {
+    /**
+     * The value of {@link #indexOf(int, int)} and
+     * {@link #getNeighbor(int, int)} for positions out of bounds.
+     */
+    public static final int NO_CELL = -1;
+
+    /**
+     * The token of a cell in a shape file.
+     */
+    public static final String CELL_TOKEN = "o";
+
+    /**
+     * The token of a position out of bounds in a shape file.
+     */
+    public static final String NO_CELL_TOKEN = ".";
+
+    private static final int DIRECTIONS = 6;
+
+    /**
+     * The hexagonal topology of every board size, created once per size.
+     */
+    private static final Map<Integer, BoardTopology> hexagons = new ConcurrentHashMap<>();
+
+    /**
+     * Every topology created so far, keyed by its shape file.
+     */
+    private static final Map<String, BoardTopology> shapes = new ConcurrentHashMap<>();
+
+    private final int size;
+    // indexed by q * size + s
+    private final int[] indices;
+    private final int[] rows;
+    private final int[] columns;
+    // indexed by index * DIRECTIONS + direction
+    private final int[] neighbors;
+    // the neighbors of every pivot in clockwise order, or null for non-pivots
+    private final int[][] cycles;
+    private final int[] pivots;
+    private final Set<TwoPhaseAction<AxialPosition, Rotation>> pivotMoves;
+
+    private BoardTopology(int size, boolean[] mask) {
+        this.size = size;
+        indices = new int[size * size];
+        int cellCount = 0;
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = mask[i] ? cellCount++ : NO_CELL;
+        }
+        rows = new int[cellCount];
+        columns = new int[cellCount];
+        for (int q = 0; q < size; q++) {
+            for (int s = 0; s < size; s++) {
+                final int index = indices[q * size + s];
+                if (index != NO_CELL) {
+                    rows[index] = q;
+                    columns[index] = s;
+                }
+            }
+        }
+        neighbors = new int[cellCount * DIRECTIONS];
+        cycles = new int[cellCount][];
+        int pivotCount = 0;
+        for (int index = 0; index < cellCount; index++) {
+            boolean pivot = true;
+            for (int k = 0; k < DIRECTIONS; k++) {
+                final var direction = SpinHexModel.ADJACENT_DIRECTIONS[k];
+                final int neighbor = indexOf(rows[index] + direction.q(), columns[index] + direction.s());
+                neighbors[index * DIRECTIONS + k] = neighbor;
+                pivot &= neighbor != NO_CELL;
+            }
+            if (pivot) {
+                cycles[index] = new int[DIRECTIONS];
+                System.arraycopy(neighbors, index * DIRECTIONS, cycles[index], 0, DIRECTIONS);
+                pivotCount++;
+            }
+        }
+        pivots = new int[pivotCount];
+        for (int index = 0, i = 0; index < cellCount; index++) {
+            if (cycles[index] != null) {
+                pivots[i++] = index;
+            }
+        }
+        pivotMoves = movesOf(pivots);
+    }
+
+    /**
+     * Returns the topology of the hexagonal board of the specified size.
+     *
+     * @param size The size of the board (number of rows/columns)
+     * @return The shared topology of the size
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public static BoardTopology of(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Invalid board size: " + size);
+        }
+        return hexagons.computeIfAbsent(size, (_) -> {
+            final int radius = size >> 1;
+            final var mask = new boolean[size * size];
+            for (int q = 0; q < size; q++) {
+                for (int s = 0; s < size; s++) {
+                    mask[q * size + s] = s >= radius - q && s < size - (radius - (size - 1 - q));
+                }
+            }
+            return intern(size, mask);
+        });
+    }
+
+    /**
+     * Returns the topology of the board having the specified cells.
+     *
+     * @param cells The cells of the board, {@code cells[q][s]} being
+     *              {@code true} if the position (q,s) is a cell, where rows may
+     *              have different lengths
+     * @return The shared topology of the shape
+     * @throws IllegalArgumentException if the shape has no cells
+     */
+    public static BoardTopology of(boolean[][] cells) {
+        int size = cells.length;
+        boolean empty = true;
+        for (boolean[] row : cells) {
+            size = Math.max(size, row.length);
+            for (boolean cell : row) {
+                empty &= !cell;
+            }
+        }
+        if (empty) {
+            throw new IllegalArgumentException("Board shape has no cells");
+        }
+        final var mask = new boolean[size * size];
+        for (int q = 0; q < cells.length; q++) {
+            for (int s = 0; s < cells[q].length; s++) {
+                mask[q * size + s] = cells[q][s];
+            }
+        }
+        return intern(size, mask);
+    }
+
+    private static BoardTopology intern(int size, boolean[] mask) {
+        return shapes.computeIfAbsent(format(size, mask), (_) -> new BoardTopology(size, mask));
+    }
+
+    /**
+     * Parses a shape file.
+     *
+     * @param text The content of the shape file
+     * @return The shared topology of the shape
+     * @throws IllegalArgumentException if the text contains an invalid token or
+     *                                  no cells
+     */
+    public static BoardTopology parse(String text) {
+        final var rows = new ArrayList<boolean[]>();
+        for (String line : text.split("\\R")) {
+            final int comment = line.indexOf('#');
+            final String content = (comment < 0 ? line : line.substring(0, comment)).strip();
+            if (content.isEmpty()) {
+                continue;
+            }
+            final String[] tokens = content.split("\\s+");
+            final var row = new boolean[tokens.length];
+            for (int s = 0; s < tokens.length; s++) {
+                row[s] = switch (tokens[s]) {
+                    case CELL_TOKEN -> true;
+                    case NO_CELL_TOKEN -> false;
+                    default -> throw new IllegalArgumentException("Invalid board shape token: " + tokens[s]);
+                };
+            }
+            rows.add(row);
+        }
+        return of(rows.toArray(boolean[][]::new));
+    }
+
+    /**
+     * Loads a shape file.
+     *
+     * @param path The path of the shape file
+     * @return The shared topology of the shape
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    public static BoardTopology load(Path path) throws IOException {
+        try {
+            return parse(Files.readString(path));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid board shape file: " + path, e);
+        }
+    }
+
+    private static String format(int size, boolean[] mask) {
+        final var sb = new StringBuilder();
+        for (int q = 0; q < size; q++) {
+            for (int s = 0; s < size; s++) {
+                sb.append(s == 0 ? "" : " ").append(mask[q * size + s] ? CELL_TOKEN : NO_CELL_TOKEN);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the board is the full hexagon of its size, i.e., the topology
+     * is the one returned by {@link #of(int)}.
+     *
+     * @return {@code true} if the board is a full hexagon, {@code false}
+     *         otherwise
+     */
+    public boolean isHexagon() {
+        return this == of(size);
+    }
+
+    /**
+     * Returns the size of the board, i.e., the number of rows/columns.
+     *
+     * @return The size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the radius of the board, i.e., half its size, rounded down, which
+     * is the radius of the hexagon of the same size.
+     *
+     * @return The radius of the board
+     */
+    public int getRadius() {
+        return size >> 1;
+    }
+
+    /**
+     * Returns the number of cells within the bounds of the board.
+     *
+     * @return The number of cells
+     */
+    public int getCellCount() {
+        return rows.length;
+    }
+
+    /**
+     * Checks if the specified axial coordinates are within the bounds of the
+     * board.
+     *
+     * @param q The q-coordinate to check
+     * @param s The s-coordinate to check
+     * @return {@code true} if the coordinates are within bounds, {@code false}
+     *         otherwise
+     */
+    public boolean isInBounds(int q, int s) {
+        return indexOf(q, s) != NO_CELL;
+    }
+
+    /**
+     * Returns the storage index of the cell at the specified axial
+     * coordinates.
+     *
+     * @param q The q-coordinate of the cell
+     * @param s The s-coordinate of the cell
+     * @return The storage index of the cell, or {@link #NO_CELL} if the
+     *         coordinates are out of bounds
+     */
+    public int indexOf(int q, int s) {
+        if (q < 0 || q >= size || s < 0 || s >= size) {
+            return NO_CELL;
+        }
+        return indices[q * size + s];
+    }
+
+    /**
+     * Returns the axial position of a cell.
+     *
+     * @param index The storage index of the cell
+     * @return The axial position of the cell
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public AxialPosition getPosition(int index) {
+        return new AxialPosition(rows[index], columns[index]);
+    }
+
+    /**
+     * Returns the q-coordinate (row) of a cell.
+     *
+     * @param index The storage index of the cell
+     * @return The q-coordinate of the cell
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * Returns the s-coordinate (column) of a cell.
+     *
+     * @param index The storage index of the cell
+     * @return The s-coordinate of the cell
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Returns the neighbor of a cell in the specified direction.
+     *
+     * @param index     The storage index of the cell
+     * @param direction The index of the direction in
+     *                  {@link SpinHexModel#ADJACENT_DIRECTIONS}
+     * @return The storage index of the neighbor, or {@link #NO_CELL} if it is
+     *         out of bounds
+     * @throws IndexOutOfBoundsException if the index or the direction is out of
+     *                                   range
+     */
+    public int getNeighbor(int index, int direction) {
+        return neighbors[index * DIRECTIONS + Objects.checkIndex(direction, DIRECTIONS)];
+    }
+
+    /**
+     * Checks if a cell is a pivot, i.e., all of its neighbors are within the
+     * bounds of the board.
+     *
+     * @param index The storage index of the cell
+     * @return {@code true} if the cell is a pivot, {@code false} otherwise
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public boolean isPivot(int index) {
+        return cycles[index] != null;
+    }
+
+    /**
+     * Returns the pivots of the board, i.e., the cells whose neighbors are all
+     * within the bounds of the board, in storage index order.
+     *
+     * @return A copy of the storage indices of the pivots
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+
+    /**
+     * Returns the moves of the specified pivots.
+     *
+     * @param pivots The storage indices of the pivots
+     * @return An unmodifiable set of the clockwise and counterclockwise moves
+     *         of the pivots
+     */
+    Set<TwoPhaseAction<AxialPosition, Rotation>> movesOf(int[] pivots) {
+        final var moves = new UnifiedSet<TwoPhaseAction<AxialPosition, Rotation>>(pivots.length * 2, 1);
+        for (int pivot : pivots) {
+            final var position = new AxialPosition(rows[pivot], columns[pivot]);
+            moves.add(new TwoPhaseAction<>(position, Rotation.CLOCKWISE));
+            moves.add(new TwoPhaseAction<>(position, Rotation.COUNTERCLOCKWISE));
+        }
+        return moves.asUnmodifiable();
+    }
+
+    /**
+     * Returns the moves of every pivot, shared by every model of the shape.
+     *
+     * @return An unmodifiable set of the clockwise and counterclockwise moves
+     *         of every pivot
+     */
+    Set<TwoPhaseAction<AxialPosition, Rotation>> getPivotMoves() {
+        return pivotMoves;
+    }
+
+    /**
+     * Returns the storage indices of the neighbors of a pivot in clockwise
+     * order, starting from the one above it. The array is shared, so it must
+     * not be modified.
+     *
+     * @param index The storage index of the cell
+     * @return The neighbors of the cell, or {@code null} if it is not a pivot
+     */
+    int[] cycleOf(int index) {
+        return cycles[index];
+    }
+
+    /**
+     * Returns the shape file of the board, which {@link #parse(String)} turns
+     * back into the same topology.
+     *
+     * @return The shape file of the board
+     */
+    @Override
+    public String toString() {
+        final var mask = new boolean[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            mask[i] = indices[i] != NO_CELL;
+        }
+        return format(size, mask);
+    }
+}
@@ -0,0 +1,287 @@
+package spinhex.model;
+
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact distance-to-target table of every board reachable from a target.
+ * <p>
+ * The table is indexed by the rank of the boards (see {@link BoardRanker})
+ * and stores the distance of every board in a 4-bit nibble, so the whole
+ * state space of the original board fits into about 23 MB. It is built by a
+ * single retrograde breadth-first search from the target, which sweeps the
+ * table layer by layer instead of keeping a frontier queue, and it can be
+ * written to a file, which is loaded by memory-mapping it.
+ * </p>
+ * <p>
+ * Once the table is available, the distance of any board, the moves leading
+ * closer to the target, and therefore an optimal solution, are simple
+ * lookups.
+ * </p>
+ */
+public final class DistanceDatabase {
+    /**
+     * The largest distance that can be stored in the table.
+     */
+    public static final int MAX_DISTANCE = 14;
+
+    private static final int MAGIC = 0x53484444; // "SHDD"
+    private static final int VERSION = 1;
+    // followed by the length and the UTF-8 bytes of the shape file
+    private static final int SHAPED_VERSION = 2;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int UNKNOWN = 0xF;
+
+    private final HexagonalGrid target;
+    private final BoardRanker ranker;
+    private final MoveTable moveTable;
+    private final ByteBuffer distances;
+
+    private DistanceDatabase(HexagonalGrid target, ByteBuffer distances) {
+        this.target = target;
+        this.ranker = new BoardRanker(target);
+        this.moveTable = new MoveTable(target);
+        this.distances = distances;
+    }
+
+    /**
+     * Builds the distance table for the solved board of the specified model.
+     *
+     * @param model The model whose solved board is the target
+     * @return The distance table of the target
+     * @throws IllegalArgumentException if the state space does not fit into a
+     *                                  single table
+     * @throws IllegalStateException    if some board is farther than
+     *                                  {@value #MAX_DISTANCE} moves from the target
+     */
+    public static DistanceDatabase build(SpinHexModel model) {
+        final var target = model.getSolution();
+        final var ranker = new BoardRanker(target);
+        if ((ranker.size() + 1) / 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many states for a distance table: " + ranker.size());
+        }
+        final var nibbles = new byte[(int) ((ranker.size() + 1) / 2)];
+        Arrays.fill(nibbles, (byte) 0xFF);
+        final var database = new DistanceDatabase(target, ByteBuffer.wrap(nibbles));
+        database.sweep();
+        return database;
+    }
+
+    private void sweep() {
+        final var board = target.clone();
+        set(ranker.rank(board), 0);
+        for (int depth = 0; ; depth++) {
+            long discovered = 0;
+            for (long rank = 0; rank < ranker.size(); rank++) {
+                if (get(rank) != depth) {
+                    continue;
+                }
+                ranker.unrank(rank, board);
+                for (int move = 0; move < moveTable.size(); move++) {
+                    moveTable.apply(move, board);
+                    final long next = ranker.rank(board);
+                    if (get(next) == UNKNOWN) {
+                        if (depth + 1 > MAX_DISTANCE) {
+                            throw new IllegalStateException("Distance exceeds " + MAX_DISTANCE);
+                        }
+                        set(next, depth + 1);
+                        discovered++;
+                    }
+                    moveTable.apply(MoveTable.inverse(move), board);
+                }
+            }
+            if (discovered == 0) {
+                return;
+            }
+        }
+    }
+
+    private int get(long rank) {
+        final int value = distances.get((int) (rank >>> 1));
+        return (rank & 1) == 0 ? value & 0xF : (value >>> 4) & 0xF;
+    }
+
+    private void set(long rank, int distance) {
+        final int index = (int) (rank >>> 1);
+        final int value = distances.get(index);
+        distances.put(index, (byte) ((rank & 1) == 0
+                ? (value & 0xF0) | distance
+                : (value & 0x0F) | (distance << 4)));
+    }
+
+    /**
+     * Loads a distance table from a file written by {@link #write(Path)}.
+     * <p>
+     * The file is memory-mapped read-only, the lookups read the mapping
+     * directly.
+     * </p>
+     *
+     * @param path The path of the file
+     * @return The distance table stored in the file
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    public static DistanceDatabase load(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                    || (buffer.getInt(4) != VERSION && buffer.getInt(4) != SHAPED_VERSION)) {
+                throw new IOException("Not a distance database file: " + path);
+            }
+            final int size = buffer.getInt(8);
+            final int cellCount = buffer.getInt(12);
+            int offset = HEADER_SIZE;
+            final BoardTopology topology;
+            try {
+                if (buffer.getInt(4) == SHAPED_VERSION) {
+                    final var shape = new byte[buffer.getInt(offset)];
+                    buffer.get(offset + Integer.BYTES, shape);
+                    offset += Integer.BYTES + shape.length;
+                    topology = BoardTopology.parse(new String(shape, StandardCharsets.UTF_8));
+                } else {
+                    topology = BoardTopology.of(size);
+                }
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Invalid board shape in distance database file: " + path, e);
+            }
+            if (buffer.limit() < offset + cellCount) {
+                throw new IOException("Truncated distance database file: " + path);
+            }
+            final var target = new HexagonalGrid(topology);
+            if (topology.getSize() != size || target.getCellCount() != cellCount) {
+                throw new IOException("Invalid board size in distance database file: " + path);
+            }
+            for (int i = 0; i < cellCount; i++) {
+                target.setCell(i, buffer.get(offset + i));
+            }
+            final long entries = (new BoardRanker(target).size() + 1) / 2;
+            if (buffer.limit() - offset - cellCount != entries) {
+                throw new IOException("Truncated distance database file: " + path);
+            }
+            return new DistanceDatabase(target, buffer.slice(offset + cellCount, (int) entries));
+        }
+    }
+
+    /**
+     * Writes the distance table to a file, overwriting it if it exists.
+     *
+     * @param path The path of the file
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void write(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var topology = target.getTopology();
+            final var shape = topology.isHexagon() ? new byte[0]
+                    : topology.toString().getBytes(StandardCharsets.UTF_8);
+            final var header = ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + shape.length + target.getCellCount())
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).putInt(topology.isHexagon() ? VERSION : SHAPED_VERSION)
+                    .putInt(target.getSize()).putInt(target.getCellCount());
+            if (!topology.isHexagon()) {
+                header.putInt(shape.length).put(shape);
+            }
+            for (int i = 0; i < target.getCellCount(); i++) {
+                header.put(target.getCell(i));
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            final var body = distances.duplicate().clear();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the table can answer queries for the specified model,
+     * i.e., it was built for the solved board of the model, and the current
+     * board of the model has the same colors.
+     *
+     * @param model The model to check
+     * @return {@code true} if the table covers the model, {@code false} otherwise
+     */
+    public boolean matches(SpinHexModel model) {
+        return target.equals(model.getSolution()) && ranker.canRank(model.getBoard());
+    }
+
+    /**
+     * Returns the number of boards covered by the table.
+     *
+     * @return The number of boards
+     */
+    public long size() {
+        return ranker.size();
+    }
+
+    /**
+     * Returns the minimal number of moves needed to transform a board into the
+     * target.
+     *
+     * @param board The board to look up
+     * @return The distance of the board, or {@code -1} if the board cannot reach
+     *         the target
+     */
+    public int distance(HexagonalGrid board) {
+        if (!ranker.canRank(board)) {
+            return -1;
+        }
+        final int distance = get(ranker.rank(board));
+        return distance == UNKNOWN ? -1 : distance;
+    }
+
+    /**
+     * Returns the moves that bring a board one step closer to the target.
+     *
+     * @param board The board to look up
+     * @return The moves starting an optimal solution, or an empty list if the
+     *         board is the target or cannot reach it
+     */
+    public List<TwoPhaseAction<AxialPosition, Rotation>> bestMoves(HexagonalGrid board) {
+        final int distance = distance(board);
+        final var bestMoves = new ArrayList<TwoPhaseAction<AxialPosition, Rotation>>();
+        if (distance <= 0) {
+            return bestMoves;
+        }
+        final var next = board.clone();
+        for (int move = 0; move < moveTable.size(); move++) {
+            moveTable.apply(move, next);
+            if (get(ranker.rank(next)) == distance - 1) {
+                bestMoves.add(moveTable.getMove(move));
+            }
+            moveTable.apply(MoveTable.inverse(move), next);
+        }
+        return bestMoves;
+    }
+
+    /**
+     * Returns an optimal solution for a board by repeatedly following the first
+     * of its best moves.
+     *
+     * @param board The board to solve
+     * @return The moves of an optimal solution, or an empty list if the board is
+     *         the target or cannot reach it
+     */
+    public List<TwoPhaseAction<AxialPosition, Rotation>> solve(HexagonalGrid board) {
+        final var solution = new ArrayList<TwoPhaseAction<AxialPosition, Rotation>>();
+        final var current = board.clone();
+        for (var moves = bestMoves(current); !moves.isEmpty(); moves = bestMoves(current)) {
+            final var move = moves.getFirst();
+            moveTable.apply(moveTable.indexOf(move), current);
+            solution.add(move);
+        }
+        return solution;
+    }
+}
@@ -0,0 +1,189 @@
+package spinhex.model;
+
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.ArrayList;
+
+/**
+ * Precompiled representation of the legal moves of a SpinHex board.
+ * <p>
+ * Every legal (pivot, rotation) pair is compiled once into a move index and
+ * a cycle of the storage indices of the six neighbors of the pivot. Applying
+ * a move shifts the cell values one step along the cycle, so lookup-heavy
+ * algorithms can work on cell indices and bitmasks instead of axial
+ * positions.
+ * </p>
+ * <p>
+ * Moves are numbered pivot by pivot in row-major order, the clockwise
+ * rotation of a pivot always having an even index and its counterclockwise
+ * rotation the next odd index, so {@code move ^ 1} is the inverse of
+ * {@code move}.
+ * </p>
+ */
+public final class MoveTable {
+    /**
+     * The number of cells moved by a single rotation.
+     */
+    public static final int CYCLE_LENGTH = 6;
+
+    private final int boardSize;
+    private final int cellCount;
+    private final TwoPhaseAction<AxialPosition, Rotation>[] moves;
+    private final int[][] cycles;
+    private final long[] cycleMasks;
+
+    /**
+     * Compiles the legal moves of the specified board.
+     * <p>
+     * A hex is a legal pivot if all of its neighbors are within the bounds of
+     * the board and are non-empty.
+     * </p>
+     *
+     * @param board The board whose legal moves are compiled
+     */
+    @SuppressWarnings("unchecked")
+    public MoveTable(HexagonalGrid board) {
+        boardSize = board.getSize();
+        cellCount = board.getCellCount();
+        final var topology = board.getTopology();
+        var pivots = new ArrayList<AxialPosition>();
+        for (int pivot : topology.getPivots()) {
+            if (isLegalPivot(board, pivot)) {
+                pivots.add(topology.getPosition(pivot));
+            }
+        }
+        moves = new TwoPhaseAction[pivots.size() * 2];
+        cycles = new int[moves.length][];
+        cycleMasks = new long[moves.length];
+        for (int i = 0; i < pivots.size(); i++) {
+            final var pivot = pivots.get(i);
+            final int[] clockwise = new int[CYCLE_LENGTH];
+            final int[] counterClockwise = new int[CYCLE_LENGTH];
+            for (int k = 0; k < CYCLE_LENGTH; k++) {
+                final var neighbor = pivot.add(SpinHexModel.ADJACENT_DIRECTIONS[k]);
+                clockwise[k] = board.indexOf(neighbor.q(), neighbor.s());
+                counterClockwise[CYCLE_LENGTH - 1 - k] = clockwise[k];
+            }
+            moves[2 * i] = new TwoPhaseAction<>(pivot, Rotation.CLOCKWISE);
+            moves[2 * i + 1] = new TwoPhaseAction<>(pivot, Rotation.COUNTERCLOCKWISE);
+            cycles[2 * i] = clockwise;
+            cycles[2 * i + 1] = counterClockwise;
+            for (int cell : clockwise) {
+                cycleMasks[2 * i] |= 1L << cell;
+            }
+            cycleMasks[2 * i + 1] = cycleMasks[2 * i];
+        }
+    }
+
+    private static boolean isLegalPivot(HexagonalGrid board, int pivot) {
+        for (int cell : board.getTopology().cycleOf(pivot)) {
+            if (board.getCell(cell) == HexColor.NONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of legal moves.
+     *
+     * @return The number of legal moves
+     */
+    public int size() {
+        return moves.length;
+    }
+
+    /**
+     * Returns the size of the board the moves were compiled for.
+     *
+     * @return The size of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the move having the specified index.
+     *
+     * @param move The index of the move
+     * @return The move as a (pivot, rotation) pair
+     */
+    public TwoPhaseAction<AxialPosition, Rotation> getMove(int move) {
+        return moves[move];
+    }
+
+    /**
+     * Returns the index of the specified move.
+     *
+     * @param moveAction The move to look up
+     * @return The index of the move, or {@code -1} if it is not a legal move
+     */
+    public int indexOf(TwoPhaseAction<AxialPosition, Rotation> moveAction) {
+        for (int move = 0; move < moves.length; move++) {
+            if (moves[move].equals(moveAction)) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the move undoing the specified move.
+     *
+     * @param move The index of the move
+     * @return The index of the inverse move
+     */
+    public static int inverse(int move) {
+        return move ^ 1;
+    }
+
+    /**
+     * Returns the storage index of a cell in the cycle of a move. Applying the
+     * move shifts the value of the cell at position {@code k} of the cycle to
+     * the cell at position {@code k + 1 (mod 6)}.
+     *
+     * @param move     The index of the move
+     * @param position The position within the cycle, from 0 to 5
+     * @return The storage index of the cell
+     */
+    public int getCycleCell(int move, int position) {
+        return cycles[move][position];
+    }
+
+    /**
+     * Applies a move to a board.
+     *
+     * @param move  The index of the move
+     * @param board The board to rotate, which must have the compiled size
+     */
+    public void apply(int move, HexagonalGrid board) {
+        final int[] cycle = cycles[move];
+        final byte last = board.getCell(cycle[CYCLE_LENGTH - 1]);
+        for (int k = CYCLE_LENGTH - 1; k > 0; k--) {
+            board.setCell(cycle[k], board.getCell(cycle[k - 1]));
+        }
+        board.setCell(cycle[0], last);
+    }
+
+    /**
+     * Applies a move to a bitmask of cells, moving every set bit along the
+     * cycle of the move the same way as {@link #apply(int, HexagonalGrid)}
+     * moves the cell values.
+     *
+     * @param move The index of the move
+     * @param mask The bitmask of cells indexed by storage index
+     * @return The bitmask after the move
+     * @throws IllegalStateException if the board has more than 64 cells
+     */
+    public long apply(int move, long mask) {
+        if (cellCount > Long.SIZE) {
+            throw new IllegalStateException("Board has too many cells for a bitmask: " + cellCount);
+        }
+        final int[] cycle = cycles[move];
+        long result = mask & ~cycleMasks[move];
+        for (int k = 0; k < CYCLE_LENGTH; k++) {
+            result |= ((mask >>> cycle[k]) & 1L) << cycle[(k + 1) % CYCLE_LENGTH];
+        }
+        return result;
+    }
+}
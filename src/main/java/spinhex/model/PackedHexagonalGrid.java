@@ -0,0 +1,339 @@
+package spinhex.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hexagonal grid storing its cells in as few bits as the number of colors
+ * requires, spanning as many {@code long} words as needed.
+ * <p>
+ * The grid offers the same cell accessors as {@link HexagonalGrid}, but a
+ * cell of a grid of {@code c} colors (values from 0 to {@code c - 1})
+ * occupies only {@code ceil(log2(c))} bits, so a board of radius 10 and 15
+ * colors, i.e., 331 cells of 4 bits, fits into 21 words instead of 331 bytes.
+ * The layout is the one of {@link PackedSpinHex#packWords(HexagonalGrid)}:
+ * cells are stored in storage index order, starting from the least
+ * significant bits of the first word, and never straddle two words, so the
+ * words of a grid can be passed to the move kernel directly.
+ * </p>
+ * <p>
+ * Equality and hashing compare the grids word by word, and copying a grid
+ * copies its words with {@code System.arraycopy}.
+ * </p>
+ */
+public final class PackedHexagonalGrid implements Cloneable {
+    private static final int MAX_COLORS = 1 << Byte.SIZE;
+
+    private final BoardTopology topology;
+    private final int bitsPerCell;
+    private final int cellsPerWord;
+    private final long cellMask;
+    private long[] words;
+
+    /**
+     * Constructs an empty grid of the specified shape, where all cells are
+     * initialized to 0.
+     *
+     * @param topology The shape of the grid
+     * @param colors   The number of distinct cell values, which range from 0 to
+     *                 {@code colors - 1}
+     * @throws IllegalArgumentException if the number of colors is not in
+     *                                  {@code [1, 256]}
+     */
+    public PackedHexagonalGrid(BoardTopology topology, int colors) {
+        if (colors < 1 || colors > MAX_COLORS) {
+            throw new IllegalArgumentException("Invalid number of colors: " + colors);
+        }
+        this.topology = topology;
+        this.bitsPerCell = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(colors - 1));
+        this.cellsPerWord = Long.SIZE / bitsPerCell;
+        this.cellMask = (1L << bitsPerCell) - 1;
+        this.words = new long[Math.max(1, (topology.getCellCount() + cellsPerWord - 1) / cellsPerWord)];
+    }
+
+    /**
+     * Constructs a packed copy of a grid. The cell width is derived from the
+     * number of colors of the puzzle, not from the values present in the grid,
+     * so all boards of a puzzle share the same layout.
+     *
+     * @param grid   The grid to copy
+     * @param colors The number of distinct cell values, which range from 0 to
+     *               {@code colors - 1}
+     * @throws IllegalArgumentException if the number of colors is not in
+     *                                  {@code [1, 256]}, or a value of the grid
+     *                                  does not fit into the cell width
+     */
+    public PackedHexagonalGrid(HexagonalGrid grid, int colors) {
+        this(grid.getTopology(), colors);
+        for (int i = 0; i < grid.getCellCount(); i++) {
+            setCell(i, grid.getCell(i));
+        }
+    }
+
+    /**
+     * Returns the shape of the grid.
+     *
+     * @return The topology of the grid
+     */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Returns the size of the grid, i.e., the number of rows/columns.
+     *
+     * @return The size of the grid
+     */
+    public int getSize() {
+        return topology.getSize();
+    }
+
+    /**
+     * Returns the radius of the grid, i.e., half its size, rounded down.
+     *
+     * @return The radius of the grid
+     */
+    public int getRadius() {
+        return topology.getRadius();
+    }
+
+    /**
+     * Returns the number of cells within the bounds of the grid.
+     *
+     * @return The number of cells of the grid
+     */
+    public int getCellCount() {
+        return topology.getCellCount();
+    }
+
+    /**
+     * Returns the number of bits used to store a single cell.
+     *
+     * @return The number of bits per cell
+     */
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    /**
+     * Returns the number of {@code long} words storing the cells.
+     *
+     * @return The number of words
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    /**
+     * Returns the words storing the cells.
+     *
+     * @return A copy of the words of the grid
+     */
+    public long[] getWords() {
+        return words.clone();
+    }
+
+    /**
+     * Overwrites the cells of the grid with the specified words, e.g., the
+     * result of a move of the {@link PackedSpinHex} kernel.
+     *
+     * @param source The words to copy, laid out as {@link #getWords()}
+     * @throws IllegalArgumentException if the number of words differs
+     */
+    public void setWords(long[] source) {
+        if (source.length != words.length) {
+            throw new IllegalArgumentException("Word count mismatch: " + source.length);
+        }
+        System.arraycopy(source, 0, words, 0, words.length);
+    }
+
+    /**
+     * Overwrites the cells of the grid with the cells of another grid.
+     *
+     * @param other The grid to copy, having the same shape and cell width
+     * @throws IllegalArgumentException if the grids have different shapes or
+     *                                  cell widths
+     */
+    public void copyFrom(PackedHexagonalGrid other) {
+        if (other.topology != topology || other.bitsPerCell != bitsPerCell) {
+            throw new IllegalArgumentException("Grid layout mismatch");
+        }
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * Checks if the specified axial coordinates are within the bounds of the
+     * grid.
+     *
+     * @param q The q-coordinate to check
+     * @param s The s-coordinate to check
+     * @return true if the coordinates are within bounds, false otherwise
+     */
+    public boolean isInBounds(int q, int s) {
+        return topology.isInBounds(q, s);
+    }
+
+    /**
+     * Checks if an axial position is within the bounds of the grid.
+     *
+     * @param position The axial position to check
+     * @return true if the position is within bounds, false otherwise
+     */
+    public boolean isInBounds(AxialPosition position) {
+        return isInBounds(position.q(), position.s());
+    }
+
+    /**
+     * Gets the value of a cell at the specified axial coordinates.
+     *
+     * @param q The q-coordinate of the cell
+     * @param s The s-coordinate of the cell
+     * @return The value of the cell
+     * @throws IllegalArgumentException if the coordinates are out of bounds
+     */
+    public byte get(int q, int s) {
+        return getCell(indexOf(q, s));
+    }
+
+    /**
+     * Gets the value of a cell at the specified axial position.
+     *
+     * @param pos The axial position of the cell
+     * @return The value of the cell
+     * @throws IllegalArgumentException if the position is out of bounds
+     */
+    public byte get(AxialPosition pos) {
+        return get(pos.q(), pos.s());
+    }
+
+    /**
+     * Sets the value of a cell at the specified axial coordinates.
+     *
+     * @param q     The q-coordinate of the cell
+     * @param s     The s-coordinate of the cell
+     * @param value The value to set for the cell
+     * @throws IllegalArgumentException if the coordinates are out of bounds or
+     *                                  the value does not fit into the cell
+     *                                  width
+     */
+    public void set(int q, int s, byte value) {
+        setCell(indexOf(q, s), value);
+    }
+
+    /**
+     * Sets the value of a cell at the specified axial position.
+     *
+     * @param pos   The axial position of the cell
+     * @param value The value to set for the cell
+     * @throws IllegalArgumentException if the position is out of bounds or the
+     *                                  value does not fit into the cell width
+     */
+    public void set(AxialPosition pos, byte value) {
+        set(pos.q(), pos.s(), value);
+    }
+
+    /**
+     * Gets the value of a cell by its storage index.
+     *
+     * @param index The storage index of the cell
+     * @return The value of the cell
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @see HexagonalGrid#getCell(int)
+     */
+    public byte getCell(int index) {
+        final int shift = Objects.checkIndex(index, getCellCount()) % cellsPerWord * bitsPerCell;
+        return (byte) ((words[index / cellsPerWord] >>> shift) & cellMask);
+    }
+
+    /**
+     * Sets the value of a cell by its storage index.
+     *
+     * @param index The storage index of the cell
+     * @param value The value to set for the cell
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException  if the value does not fit into the cell
+     *                                   width
+     */
+    public void setCell(int index, byte value) {
+        final long cell = value & 0xFF;
+        if ((cell & ~cellMask) != 0) {
+            throw new IllegalArgumentException("Value does not fit into " + bitsPerCell + " bits: " + value);
+        }
+        final int shift = Objects.checkIndex(index, getCellCount()) % cellsPerWord * bitsPerCell;
+        final int word = index / cellsPerWord;
+        words[word] = (words[word] & ~(cellMask << shift)) | (cell << shift);
+    }
+
+    private int indexOf(int q, int s) {
+        final int index = topology.indexOf(q, s);
+        if (index == BoardTopology.NO_CELL) {
+            throw new IllegalArgumentException("Coordinates out of bounds: (" + q + ", " + s + ")");
+        }
+        return index;
+    }
+
+    /**
+     * Returns an unpacked copy of the grid.
+     *
+     * @return A new hexagonal grid with the same shape and content
+     */
+    public HexagonalGrid toHexagonalGrid() {
+        final var grid = new HexagonalGrid(topology);
+        for (int i = 0; i < getCellCount(); i++) {
+            grid.setCell(i, getCell(i));
+        }
+        return grid;
+    }
+
+    /**
+     * Creates a copy of this grid.
+     *
+     * @return A new grid with the same shape, cell width and content
+     */
+    @Override
+    public PackedHexagonalGrid clone() {
+        try {
+            final var cloned = (PackedHexagonalGrid) super.clone();
+            cloned.words = new long[words.length];
+            System.arraycopy(words, 0, cloned.words, 0, words.length);
+            return cloned;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Cloning not supported", e);
+        }
+    }
+
+    /**
+     * Compares this grid with another object for equality.
+     * <p>
+     * Two packed grids are equal if they have the same shape, the same cell
+     * width and the same words.
+     * </p>
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        final var that = (PackedHexagonalGrid) o;
+        return topology == that.topology && bitsPerCell == that.bitsPerCell && Arrays.equals(words, that.words);
+    }
+
+    /**
+     * Returns a hash code for this grid, mixing its words one by one.
+     *
+     * @return A hash code value for this object
+     */
+    @Override
+    public int hashCode() {
+        long hash = bitsPerCell;
+        for (long word : words) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 32;
+        }
+        return (int) hash;
+    }
+}
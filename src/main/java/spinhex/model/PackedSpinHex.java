@@ -0,0 +1,327 @@
+package spinhex.model;
+
+/**
+ * Bit-parallel move kernel operating on packed boards.
+ * <p>
+ * A packed board stores every cell in a fixed number of bits, in storage
+ * index order, starting from the least significant bits of the first word.
+ * Cells never straddle two words, so a board of {@code n} cells needs
+ * {@code ceil(n / (64 / bitsPerCell))} words. With the default
+ * {@value HexagonalGrid#PACKED_BITS_PER_CELL} bits per cell the original
+ * board fits into a single {@code long}, and the encoding is the same as
+ * {@link HexagonalGrid#pack()}.
+ * </p>
+ * <p>
+ * Every move of the {@link MoveTable} is compiled into a mask of the cells it
+ * keeps and at most six (mask, rotation) terms. The cells moved by the same
+ * distance share a term, and applying a move is
+ * {@code (x & keep) | rotl(x & m1, r1) | ... | rotl(x & m6, r6)} without any
+ * branch. Unused terms have an empty mask, so every move costs the same.
+ * </p>
+ */
+public final class PackedSpinHex {
+    /**
+     * The number of (mask, rotation) terms of every move.
+     */
+    public static final int TERMS = MoveTable.CYCLE_LENGTH;
+
+    private final MoveTable moveTable;
+    private final int bitsPerCell;
+    private final int cellsPerWord;
+    private final int cellCount;
+    private final int wordCount;
+    private final long[] target;
+    // indexed by move * wordCount + word
+    private final long[] keep;
+    // indexed by move * TERMS + term
+    private final long[] masks;
+    private final int[] rotations;
+    private final int[] sourceWords;
+    private final int[] targetWords;
+
+    /**
+     * Compiles the moves of a board using
+     * {@value HexagonalGrid#PACKED_BITS_PER_CELL} bits per cell.
+     *
+     * @param target The board whose legal moves are compiled, and which is the
+     *               target of {@link #isTarget(long)}
+     * @throws IllegalArgumentException if a cell value does not fit into the
+     *                                  cell width
+     */
+    public PackedSpinHex(HexagonalGrid target) {
+        this(target, HexagonalGrid.PACKED_BITS_PER_CELL);
+    }
+
+    /**
+     * Compiles the moves of a board using the specified number of bits per
+     * cell.
+     *
+     * @param target      The board whose legal moves are compiled, and which is
+     *                    the target of {@link #isTarget(long)}
+     * @param bitsPerCell The number of bits of a cell, from 1 to 32
+     * @throws IllegalArgumentException if the cell width is out of range, or a
+     *                                  cell value does not fit into it
+     */
+    public PackedSpinHex(HexagonalGrid target, int bitsPerCell) {
+        if (bitsPerCell < 1 || bitsPerCell > Integer.SIZE) {
+            throw new IllegalArgumentException("Invalid number of bits per cell: " + bitsPerCell);
+        }
+        this.moveTable = new MoveTable(target);
+        this.bitsPerCell = bitsPerCell;
+        this.cellsPerWord = Long.SIZE / bitsPerCell;
+        this.cellCount = target.getCellCount();
+        this.wordCount = Math.max(1, (cellCount + cellsPerWord - 1) / cellsPerWord);
+        this.target = packWords(target);
+
+        final int moves = moveTable.size();
+        keep = new long[moves * wordCount];
+        masks = new long[moves * TERMS];
+        rotations = new int[moves * TERMS];
+        sourceWords = new int[moves * TERMS];
+        targetWords = new int[moves * TERMS];
+        final long cellMask = cellMask();
+        for (int move = 0; move < moves; move++) {
+            for (int word = 0; word < wordCount; word++) {
+                keep[move * wordCount + word] = -1L;
+            }
+            int terms = 0;
+            for (int k = 0; k < TERMS; k++) {
+                final int from = moveTable.getCycleCell(move, k);
+                final int to = moveTable.getCycleCell(move, (k + 1) % TERMS);
+                final int sourceWord = from / cellsPerWord;
+                final int targetWord = to / cellsPerWord;
+                final int rotation = (to % cellsPerWord - from % cellsPerWord) * bitsPerCell;
+                keep[move * wordCount + targetWord] &= ~(cellMask << (to % cellsPerWord * bitsPerCell));
+                int term = move * TERMS;
+                while (term < move * TERMS + terms && (sourceWords[term] != sourceWord
+                        || targetWords[term] != targetWord || rotations[term] != rotation)) {
+                    term++;
+                }
+                if (term == move * TERMS + terms) {
+                    terms++;
+                    sourceWords[term] = sourceWord;
+                    targetWords[term] = targetWord;
+                    rotations[term] = rotation;
+                }
+                masks[term] |= cellMask << (from % cellsPerWord * bitsPerCell);
+            }
+        }
+    }
+
+    private long cellMask() {
+        return (1L << bitsPerCell) - 1;
+    }
+
+    /**
+     * Returns the moves the kernel was compiled from, which map move indices
+     * to (pivot, rotation) pairs.
+     *
+     * @return The move table
+     */
+    public MoveTable getMoveTable() {
+        return moveTable;
+    }
+
+    /**
+     * Returns the number of legal moves.
+     *
+     * @return The number of legal moves
+     */
+    public int size() {
+        return moveTable.size();
+    }
+
+    /**
+     * Returns the number of bits used to store a single cell.
+     *
+     * @return The number of bits per cell
+     */
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    /**
+     * Returns the number of {@code long} words of a packed board.
+     *
+     * @return The number of words
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the mask of the cells a move leaves in place on a single-word
+     * packed board.
+     *
+     * @param move The index of the move
+     * @return The mask of the kept cells
+     */
+    public long getKeepMask(int move) {
+        return keep[move * wordCount];
+    }
+
+    /**
+     * Returns the mask of the cells moved by a term of a move on a single-word
+     * packed board, which is empty for unused terms.
+     *
+     * @param move The index of the move
+     * @param term The index of the term, from 0 to {@value #TERMS} (exclusive)
+     * @return The mask of the cells moved by the term
+     */
+    public long getTermMask(int move, int term) {
+        return masks[move * TERMS + term];
+    }
+
+    /**
+     * Returns the left rotation applied to the cells of a term of a move on a
+     * single-word packed board.
+     *
+     * @param move The index of the move
+     * @param term The index of the term, from 0 to {@value #TERMS} (exclusive)
+     * @return The rotation distance in bits, which may be negative
+     */
+    public int getTermRotation(int move, int term) {
+        return rotations[move * TERMS + term];
+    }
+
+    /**
+     * Packs a board into a single {@code long}.
+     *
+     * @param board The board to pack
+     * @return The packed board
+     * @throws IllegalStateException    if the packed board needs more than one
+     *                                  word
+     * @throws IllegalArgumentException if the board has a different number of
+     *                                  cells, or a value does not fit into the
+     *                                  cell width
+     */
+    public long pack(HexagonalGrid board) {
+        requireSingleWord();
+        return packWords(board)[0];
+    }
+
+    /**
+     * Packs a board into an array of {@link #getWordCount()} words.
+     *
+     * @param board The board to pack
+     * @return The packed board
+     * @throws IllegalArgumentException if the board has a different number of
+     *                                  cells, or a value does not fit into the
+     *                                  cell width
+     */
+    public long[] packWords(HexagonalGrid board) {
+        if (board.getCellCount() != cellCount) {
+            throw new IllegalArgumentException("Cell count mismatch: " + board.getCellCount());
+        }
+        final long cellMask = cellMask();
+        final var words = new long[wordCount];
+        for (int i = 0; i < cellCount; i++) {
+            final long value = board.getCell(i);
+            if ((value & ~cellMask) != 0) {
+                throw new IllegalArgumentException("Value does not fit into " + bitsPerCell + " bits: " + value);
+            }
+            words[i / cellsPerWord] |= value << (i % cellsPerWord * bitsPerCell);
+        }
+        return words;
+    }
+
+    /**
+     * Overwrites the cells of a board with a packed board.
+     *
+     * @param packed The packed board
+     * @param board  The board to overwrite, which must have the same number of
+     *               cells
+     * @throws IllegalStateException if the packed board needs more than one word
+     */
+    public void unpack(long packed, HexagonalGrid board) {
+        requireSingleWord();
+        unpack(new long[] { packed }, board);
+    }
+
+    /**
+     * Overwrites the cells of a board with a packed board.
+     *
+     * @param packed The words of the packed board
+     * @param board  The board to overwrite, which must have the same number of
+     *               cells
+     * @throws IllegalArgumentException if the board has a different number of
+     *                                  cells
+     */
+    public void unpack(long[] packed, HexagonalGrid board) {
+        if (board.getCellCount() != cellCount) {
+            throw new IllegalArgumentException("Cell count mismatch: " + board.getCellCount());
+        }
+        final long cellMask = cellMask();
+        for (int i = 0; i < cellCount; i++) {
+            board.setCell(i, (byte) ((packed[i / cellsPerWord] >>> (i % cellsPerWord * bitsPerCell)) & cellMask));
+        }
+    }
+
+    private void requireSingleWord() {
+        if (wordCount != 1) {
+            throw new IllegalStateException("Packed board needs " + wordCount + " words");
+        }
+    }
+
+    /**
+     * Applies a move to a single-word packed board. Only valid if
+     * {@link #getWordCount()} is 1.
+     *
+     * @param move  The index of the move
+     * @param board The packed board
+     * @return The packed board after the move
+     */
+    public long apply(int move, long board) {
+        final int term = move * TERMS;
+        return (board & keep[move])
+                | Long.rotateLeft(board & masks[term], rotations[term])
+                | Long.rotateLeft(board & masks[term + 1], rotations[term + 1])
+                | Long.rotateLeft(board & masks[term + 2], rotations[term + 2])
+                | Long.rotateLeft(board & masks[term + 3], rotations[term + 3])
+                | Long.rotateLeft(board & masks[term + 4], rotations[term + 4])
+                | Long.rotateLeft(board & masks[term + 5], rotations[term + 5]);
+    }
+
+    /**
+     * Applies a move to a multi-word packed board.
+     *
+     * @param move  The index of the move
+     * @param board The words of the packed board
+     * @param child The array receiving the words of the board after the move,
+     *              which must not be the same array as {@code board}
+     */
+    public void apply(int move, long[] board, long[] child) {
+        final int base = move * wordCount;
+        for (int word = 0; word < wordCount; word++) {
+            child[word] = board[word] & keep[base + word];
+        }
+        final int term = move * TERMS;
+        for (int t = term; t < term + TERMS; t++) {
+            child[targetWords[t]] |= Long.rotateLeft(board[sourceWords[t]] & masks[t], rotations[t]);
+        }
+    }
+
+    /**
+     * Checks whether a single-word packed board is the target board.
+     *
+     * @param board The packed board
+     * @return {@code true} if the board is the target, {@code false} otherwise
+     */
+    public boolean isTarget(long board) {
+        return board == target[0];
+    }
+
+    /**
+     * Checks whether a multi-word packed board is the target board.
+     *
+     * @param board The words of the packed board
+     * @return {@code true} if the board is the target, {@code false} otherwise
+     */
+    public boolean isTarget(long[] board) {
+        long difference = 0;
+        for (int word = 0; word < wordCount; word++) {
+            difference |= board[word] ^ target[word];
+        }
+        return difference == 0;
+    }
+}
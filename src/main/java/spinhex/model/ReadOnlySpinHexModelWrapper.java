@@ -3,6 +3,9 @@ package spinhex.model;
 import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.ReadOnlyIntegerWrapper;
 
+import java.util.ArrayList;
+import java.util.random.RandomGenerator;
+
 /**
  * A read-only wrapper for the SpinHex model that provides access to the board
  * properties without allowing modifications.
@@ -13,6 +16,7 @@ import javafx.beans.property.ReadOnlyIntegerWrapper;
  */
 public class ReadOnlySpinHexModelWrapper extends SpinHexModel {
     private ReadOnlyIntegerWrapper[][] boardProperty;
+    private final ReadOnlyIntegerWrapper tilesRemaining = new ReadOnlyIntegerWrapper(getMisplacedHexCount());
 
     /**
      * Constructs a read-only wrapper for a SpinHex model with the default board.
@@ -37,7 +41,19 @@ public class ReadOnlySpinHexModelWrapper extends SpinHexModel {
      * @param targetBoard   The target state of the board as a 2D byte array
      */
     public ReadOnlySpinHexModelWrapper(byte[][] startingBoard, byte[][] targetBoard) {
-        super(startingBoard, targetBoard);
+        this(BoardTopology.of(startingBoard.length), startingBoard, targetBoard);
+    }
+
+    /**
+     * Constructs a read-only wrapper for a SpinHex model on a board of the
+     * specified shape, with the specified starting and target boards.
+     *
+     * @param topology      The shape of the board
+     * @param startingBoard The initial state of the board as a 2D byte array
+     * @param targetBoard   The target state of the board as a 2D byte array
+     */
+    public ReadOnlySpinHexModelWrapper(BoardTopology topology, byte[][] startingBoard, byte[][] targetBoard) {
+        super(topology, startingBoard, targetBoard);
         boardProperty = new ReadOnlyIntegerWrapper[getBoardSize()][getBoardSize()];
         for (int i = 0; i < getBoardSize(); i++) {
             for (int j = 0; j < getBoardSize(); j++) {
@@ -47,6 +63,35 @@ public class ReadOnlySpinHexModelWrapper extends SpinHexModel {
         }
     }
 
+    /**
+     * Creates a puzzle on a board of the specified shape, e.g., one loaded from
+     * a shape file, which only defines the cells. The target board is colored
+     * red, blue and green in three bands of rows, and the starting board is
+     * the target scrambled by random legal moves.
+     *
+     * @param topology The shape of the board
+     * @param moves    The number of random moves scrambling the target
+     * @param random   The source of the random moves
+     * @return The read-only model of the puzzle
+     */
+    public static ReadOnlySpinHexModelWrapper scrambled(BoardTopology topology, int moves, RandomGenerator random) {
+        var target = new byte[topology.getSize()][topology.getSize()];
+        for (int i = 0; i < topology.getCellCount(); i++) {
+            var position = topology.getPosition(i);
+            target[position.q()][position.s()] = switch (3 * i / topology.getCellCount()) {
+                case 0 -> HexColor.RED;
+                case 1 -> HexColor.BLUE;
+                default -> HexColor.GREEN;
+            };
+        }
+        var model = new ReadOnlySpinHexModelWrapper(topology, target, target);
+        var legalMoves = new ArrayList<>(model.getLegalMoves());
+        for (int i = 0; i < moves && !legalMoves.isEmpty(); i++) {
+            model.makeMove(legalMoves.get(random.nextInt(legalMoves.size())));
+        }
+        return model;
+    }
+
     /**
      * Returns a read-only property for the hex at the specified axial coordinates.
      *
@@ -58,6 +103,16 @@ public class ReadOnlySpinHexModelWrapper extends SpinHexModel {
         return boardProperty[q][s];
     }
 
+    /**
+     * Returns a read-only property for the number of hexes that are not in
+     * their solved position yet, which is updated by every move.
+     *
+     * @return A read-only integer property representing the misplaced hex count
+     */
+    public ReadOnlyIntegerProperty getTilesRemainingProperty() {
+        return tilesRemaining.getReadOnlyProperty();
+    }
+
     /**
      * Makes a move in the SpinHex model and updates the property model
      * accordingly.
@@ -68,11 +123,22 @@ public class ReadOnlySpinHexModelWrapper extends SpinHexModel {
         updatePropertyModelAround(moveAction.from().q(), moveAction.from().s());
     }
 
+    /**
+     * Undoes a move in the SpinHex model and updates the property model
+     * accordingly.
+     */
+    @Override
+    public void undoMove(TwoPhaseAction<AxialPosition, Rotation> moveAction) {
+        super.undoMove(moveAction);
+        updatePropertyModelAround(moveAction.from().q(), moveAction.from().s());
+    }
+
     private void updatePropertyModelAround(int q, int s) {
         for (var d : ADJACENT_DIRECTIONS) {
             var nq = q + d.q();
             var ns = s + d.s();
             boardProperty[nq][ns].setValue(board.get(nq, ns));
         }
+        tilesRemaining.set(getMisplacedHexCount());
     }
 }
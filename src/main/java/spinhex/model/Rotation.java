@@ -12,5 +12,14 @@ public enum Rotation {
     /**
      * Represents a rotation in the counterclockwise direction.
      */
-    COUNTERCLOCKWISE
+    COUNTERCLOCKWISE;
+
+    /**
+     * Returns the rotation that undoes this rotation.
+     *
+     * @return {@code COUNTERCLOCKWISE} for {@code CLOCKWISE} and vice versa
+     */
+    public Rotation inverse() {
+        return this == CLOCKWISE ? COUNTERCLOCKWISE : CLOCKWISE;
+    }
 }
@@ -1,7 +1,9 @@
 package spinhex.model;
 
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 import puzzle.State;
+import solver.ReversibleState;
+import solver.StateEncoder;
+import solver.StateIndexer;
 
 import java.util.*;
 
@@ -28,7 +30,8 @@ import java.util.*;
  * The model keeps track of the current state of the board and provides methods
  * to query and manipulate the state according to the game rules.
  */
-public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation> {
+public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation>,
+        ReversibleState<TwoPhaseActionState.TwoPhaseAction<AxialPosition, Rotation>> {
     /**
      * The hexagonal grid representing the current state of the SpinHex board.
      * It contains the colors of the hexes in the game.
@@ -51,7 +54,27 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
 
     private final HexagonalGrid solvedBoard;
 
-    private static final HashMap<Integer, UnifiedSet<TwoPhaseAction<AxialPosition, Rotation>>> legalMovesMemo = new HashMap<>();
+    /**
+     * The number of hexes whose color differs from {@link #solvedBoard},
+     * updated by every write of a rotation.
+     */
+    private int misplacedHexCount;
+
+    private DistanceDatabase distanceDatabase;
+
+    /**
+     * The topology of the board, shared by every model of the same board shape,
+     * whose precomputed neighbor cycles make rotating allocation-free.
+     */
+    private final BoardTopology topology;
+
+    /**
+     * The legal moves of the model, which never change, since a hex can only
+     * be moved by the rotation of a pivot whose neighbors are all non-empty,
+     * so empty hexes stay in place. Immutable, and shared by every model of
+     * the same shape whose pivots are all legal.
+     */
+    private final Set<TwoPhaseAction<AxialPosition, Rotation>> legalMoves;
 
     /**
      * Constructs a new {@code SpinHexModel} with the initial board configuration.
@@ -80,8 +103,29 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
      * @param targetBoard   The solved configuration of the board.
      */
     public SpinHexModel(byte[][] startingBoard, byte[][] targetBoard) {
-        board = new HexagonalGrid(startingBoard);
-        solvedBoard = new HexagonalGrid(targetBoard);
+        this(BoardTopology.of(startingBoard.length), startingBoard, targetBoard);
+    }
+
+    /**
+     * Constructs a new {@code SpinHexModel} on a board of the specified shape,
+     * e.g., one loaded by {@link BoardTopology#load}.
+     *
+     * @param topology      The shape of the board.
+     * @param startingBoard The initial configuration of the board, indexed by
+     *                      (q,s).
+     * @param targetBoard   The solved configuration of the board, indexed by
+     *                      (q,s).
+     */
+    public SpinHexModel(BoardTopology topology, byte[][] startingBoard, byte[][] targetBoard) {
+        board = new HexagonalGrid(topology, startingBoard);
+        solvedBoard = new HexagonalGrid(topology, targetBoard);
+        this.topology = topology;
+        legalMoves = generateLegalMoves();
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.getCell(i) != solvedBoard.getCell(i)) {
+                misplacedHexCount++;
+            }
+        }
     }
 
     /**
@@ -94,6 +138,34 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
         return solvedBoard.clone();
     }
 
+    /**
+     * Creates a model whose current board is the solved configuration.
+     * <p>
+     * The returned model is the goal state of the puzzle, which can be used by
+     * solvers searching backward from the solution.
+     * </p>
+     *
+     * @return A new {@code SpinHexModel} in the solved state.
+     */
+    public SpinHexModel getSolvedModel() {
+        var solved = (SpinHexModel) clone();
+        solved.board = solvedBoard.clone();
+        solved.misplacedHexCount = 0;
+        return solved;
+    }
+
+    /**
+     * Returns the move that undoes the specified move.
+     * Rotating the neighbors of the same hex in the opposite direction restores
+     * the board, so every move has an inverse.
+     *
+     * @param moveAction The move to invert.
+     * @return The inverse of the move.
+     */
+    public static TwoPhaseAction<AxialPosition, Rotation> inverseOf(TwoPhaseAction<AxialPosition, Rotation> moveAction) {
+        return new TwoPhaseAction<>(moveAction.from(), moveAction.action().inverse());
+    }
+
     /**
      * Gets the current state of the SpinHex board.
      *
@@ -104,6 +176,52 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
         return board.clone();
     }
 
+    /**
+     * Encodes the current state of the board into a single {@code long}.
+     *
+     * @return The packed encoding of the board.
+     * @see HexagonalGrid#pack()
+     */
+    public long pack() {
+        return board.pack();
+    }
+
+    /**
+     * Returns an encoder that maps {@code SpinHexModel} states to their packed
+     * board encoding, to be used by solvers tracking visited states as
+     * primitive {@code long} keys.
+     *
+     * @return A state encoder for {@code SpinHexModel} states.
+     * @see #pack()
+     */
+    public static StateEncoder<TwoPhaseAction<AxialPosition, Rotation>> packedEncoder() {
+        return state -> ((SpinHexModel) state).pack();
+    }
+
+    /**
+     * Returns a perfect hash over the boards reachable from the current one,
+     * mapping every permutation of the current color multiset to a dense
+     * index, to be used by solvers tracking visited states in a bitset.
+     *
+     * @return A state indexer for {@code SpinHexModel} states having the same
+     *         board shape and color counts as this one.
+     * @see BoardRanker
+     */
+    public StateIndexer<TwoPhaseAction<AxialPosition, Rotation>> rankedIndexer() {
+        final var ranker = new BoardRanker(board);
+        return new StateIndexer<>() {
+            @Override
+            public long size() {
+                return ranker.size();
+            }
+
+            @Override
+            public long encode(State<TwoPhaseAction<AxialPosition, Rotation>> state) {
+                return ranker.rank(((SpinHexModel) state).board);
+            }
+        };
+    }
+
     /**
      * Gets the size of the SpinHex board.
      *
@@ -131,17 +249,17 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
      * Gets the neighbors of the hex at the specified position.
      *
      * @param position The position of the hex.
-     * @return A list of colors of the neighboring hexes.
+     * @return A list of colors of the neighboring hexes, in the order of
+     *         {@link #ADJACENT_DIRECTIONS}, with {@code HexColor.NONE} for
+     *         neighbors out of bounds.
+     * @throws IllegalArgumentException if the position is out of bounds.
      */
     public List<Byte> getNeighbors(AxialPosition position) {
-        List<Byte> neighbors = new ArrayList<>(6);
-        for (var dir : ADJACENT_DIRECTIONS) {
-            AxialPosition neighborPos = position.add(dir);
-            if (board.isInBounds(neighborPos)) {
-                neighbors.add(getHex(neighborPos));
-            } else {
-                neighbors.add(HexColor.NONE);
-            }
+        final int index = board.indexOf(position.q(), position.s());
+        List<Byte> neighbors = new ArrayList<>(ADJACENT_DIRECTIONS.length);
+        for (int k = 0; k < ADJACENT_DIRECTIONS.length; k++) {
+            final int neighbor = topology.getNeighbor(index, k);
+            neighbors.add(neighbor == BoardTopology.NO_CELL ? HexColor.NONE : board.getCell(neighbor));
         }
         return neighbors;
     }
@@ -157,30 +275,122 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
      */
     @Override
     public boolean isLegalToMoveFrom(AxialPosition from) {
-        return board.isInBounds(from) && getNeighbors(from).stream().noneMatch(color -> color == HexColor.NONE);
+        final int index = topology.indexOf(from.q(), from.s());
+        if (index == BoardTopology.NO_CELL || !topology.isPivot(index)) {
+            return false;
+        }
+        final int[] cycle = topology.cycleOf(index);
+        for (int cell : cycle) {
+            if (board.getCell(cell) == HexColor.NONE) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Checks if the puzzle is solved.
-     * The puzzle is considered solved if all hexes match the solved configuration.
+     * The puzzle is considered solved if all hexes match the solved configuration,
+     * i.e., no hex is misplaced, which takes constant time.
      *
      * @return {@code true} if the puzzle is solved, {@code false} otherwise.
      */
     @Override
     public boolean isSolved() {
-        return board.equals(solvedBoard);
+        return misplacedHexCount == 0;
+    }
+
+    /**
+     * Counts the hexes whose color differs from the solved configuration.
+     * The count is maintained by every move, only checking the six hexes the
+     * move rotates, so it takes constant time.
+     *
+     * @return The number of misplaced hexes, zero if the puzzle is solved.
+     */
+    public int getMisplacedHexCount() {
+        return misplacedHexCount;
+    }
+
+    /**
+     * Gets the cells of the board holding the specified color as a bitmask,
+     * without copying the board.
+     *
+     * @param color The color to look for.
+     * @return The bitmask of the cells holding the color, indexed by storage
+     *         index.
+     * @see HexagonalGrid#getValueMask(byte)
+     */
+    public long getColorMask(byte color) {
+        return board.getValueMask(color);
+    }
+
+    /**
+     * Attaches a precomputed distance table to the model, which answers
+     * {@link #distanceToSolution()} and {@link #bestMoves()} in constant time.
+     * The table is shared with the clones of the model.
+     *
+     * @param distanceDatabase The distance table, or {@code null} to detach it.
+     * @throws IllegalArgumentException if the table was built for a different
+     *                                  solved board or color mix.
+     */
+    public void setDistanceDatabase(DistanceDatabase distanceDatabase) {
+        if (distanceDatabase != null && !distanceDatabase.matches(this)) {
+            throw new IllegalArgumentException("Distance database does not match the model");
+        }
+        this.distanceDatabase = distanceDatabase;
+    }
+
+    /**
+     * Gets the distance table attached to the model.
+     *
+     * @return The attached distance table, or {@code null} if none is attached.
+     */
+    public DistanceDatabase getDistanceDatabase() {
+        return distanceDatabase;
+    }
+
+    /**
+     * Gets the minimal number of moves needed to solve the puzzle from the
+     * current state, using the attached distance table.
+     *
+     * @return The number of moves of an optimal solution, or {@code -1} if the
+     *         puzzle cannot be solved.
+     * @throws IllegalStateException if no distance table is attached.
+     */
+    public int distanceToSolution() {
+        return requireDistanceDatabase().distance(board);
+    }
+
+    /**
+     * Gets the moves that bring the current state one step closer to the
+     * solution, using the attached distance table.
+     *
+     * @return The moves starting an optimal solution, or an empty list if the
+     *         puzzle is solved or cannot be solved.
+     * @throws IllegalStateException if no distance table is attached.
+     */
+    public List<TwoPhaseAction<AxialPosition, Rotation>> bestMoves() {
+        return requireDistanceDatabase().bestMoves(board);
+    }
+
+    private DistanceDatabase requireDistanceDatabase() {
+        if (distanceDatabase == null) {
+            throw new IllegalStateException("No distance database attached");
+        }
+        return distanceDatabase;
     }
 
     /**
      * Gets the set of legal moves available from the current state.
-     * This method computes the legal moves based on the current board size
-     * and caches the result for efficiency.
+     * The legal moves are computed once, when the model is created, and the
+     * same immutable set is returned without copying, so it can be read by
+     * several threads at once.
      *
-     * @return A set of legal moves.
+     * @return An unmodifiable set of legal moves.
      */
     @Override
     public Set<TwoPhaseAction<AxialPosition, Rotation>> getLegalMoves() {
-        return legalMovesMemo.computeIfAbsent(getBoardSize(), (_) -> generateLegalMoves()).clone();
+        return legalMoves;
     }
 
     /**
@@ -199,18 +409,51 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
     /**
      * Makes a move based on the specified action.
      * This method performs the rotation of the hexes around the specified position
-     * in the direction specified by the action.
+     * in the direction specified by the action, shifting the cells along the
+     * precompiled cycle of the position without any allocation.
      *
      * @param moveAction The move action to perform.
+     * @throws IllegalArgumentException if the position or any of its neighbors
+     *                                  is out of bounds.
      */
     @Override
     public void makeMove(TwoPhaseAction<AxialPosition, Rotation> moveAction) {
+        final int[] cycle = cycleOf(moveAction.from());
+        switch (moveAction.action()) {
+            case CLOCKWISE -> rotateClockwise(cycle);
+            case COUNTERCLOCKWISE -> rotateCounterClockwise(cycle);
+        }
+    }
+
+    /**
+     * Undoes a move in place by rotating the hexes around the specified
+     * position in the opposite direction, without any allocation.
+     *
+     * @param moveAction The move action to undo.
+     * @throws IllegalArgumentException if the position or any of its neighbors
+     *                                  is out of bounds.
+     */
+    @Override
+    public void undoMove(TwoPhaseAction<AxialPosition, Rotation> moveAction) {
+        final int[] cycle = cycleOf(moveAction.from());
         switch (moveAction.action()) {
-            case CLOCKWISE -> rotateClockwise(moveAction.from());
-            case COUNTERCLOCKWISE -> rotateCounterClockwise(moveAction.from());
+            case CLOCKWISE -> rotateCounterClockwise(cycle);
+            case COUNTERCLOCKWISE -> rotateClockwise(cycle);
         }
     }
 
+    private int[] cycleOf(AxialPosition from) {
+        final int index = topology.indexOf(from.q(), from.s());
+        if (index == BoardTopology.NO_CELL) {
+            throw new IllegalArgumentException("Position out of bounds: " + from);
+        }
+        final int[] cycle = topology.cycleOf(index);
+        if (cycle == null) {
+            throw new IllegalArgumentException("Neighbors out of bounds: " + from);
+        }
+        return cycle;
+    }
+
     /**
      * Creates a clone of the current {@code SpinHexModel} state.
      *
@@ -278,45 +521,44 @@ public class SpinHexModel implements TwoPhaseActionState<AxialPosition, Rotation
         return board.hashCode();
     }
 
-    private UnifiedSet<TwoPhaseAction<AxialPosition, Rotation>> generateLegalMoves() {
-        final var legalMoves = new ArrayList<TwoPhaseAction<AxialPosition, Rotation>>();
-
-        for (int i = 0; i < getBoardSize(); i++) {
-            for (int j = 0; j < getBoardSize(); j++) {
-                if (isLegalToMoveFrom(new AxialPosition(i, j))) {
-                    legalMoves.add(new TwoPhaseAction<>(new AxialPosition(i, j), Rotation.CLOCKWISE));
-                    legalMoves.add(new TwoPhaseAction<>(new AxialPosition(i, j), Rotation.COUNTERCLOCKWISE));
-                }
+    private Set<TwoPhaseAction<AxialPosition, Rotation>> generateLegalMoves() {
+        final int[] pivots = topology.getPivots();
+        int legal = 0;
+        for (int pivot : pivots) {
+            if (isLegalToMoveFrom(topology.getPosition(pivot))) {
+                pivots[legal++] = pivot;
             }
         }
-        final var legalMovesSet = new UnifiedSet<TwoPhaseAction<AxialPosition, Rotation>>(legalMoves.size(), 1);
-        legalMovesSet.addAll(legalMoves);
-        return legalMovesSet;
+        if (legal == pivots.length) {
+            return topology.getPivotMoves();
+        }
+        return topology.movesOf(Arrays.copyOf(pivots, legal));
     }
 
-    private void rotateCounterClockwise(AxialPosition from) {
-        Byte temp = getHex(from.add(ADJACENT_DIRECTIONS[0]));
-
-        for (int i = 0; i < ADJACENT_DIRECTIONS.length - 1; i++) {
-            AxialPosition current = from.add(ADJACENT_DIRECTIONS[i]);
-            AxialPosition next = from.add(ADJACENT_DIRECTIONS[i + 1]);
-            board.set(current, getHex(next));
+    private void rotateCounterClockwise(int[] cycle) {
+        final byte temp = board.getCell(cycle[0]);
+        for (int i = 0; i < cycle.length - 1; i++) {
+            setCell(cycle[i], board.getCell(cycle[i + 1]));
         }
-
-        AxialPosition lastPosition = from.add(ADJACENT_DIRECTIONS[5]);
-        board.set(lastPosition, temp);
+        setCell(cycle[cycle.length - 1], temp);
     }
 
-    private void rotateClockwise(AxialPosition from) {
-        Byte temp = getHex(from.add(ADJACENT_DIRECTIONS[5]));
-
-        for (int i = ADJACENT_DIRECTIONS.length - 1; i > 0; i--) {
-            AxialPosition current = from.add(ADJACENT_DIRECTIONS[i]);
-            AxialPosition previous = from.add(ADJACENT_DIRECTIONS[i - 1]);
-            board.set(current, getHex(previous));
+    private void rotateClockwise(int[] cycle) {
+        final byte temp = board.getCell(cycle[cycle.length - 1]);
+        for (int i = cycle.length - 1; i > 0; i--) {
+            setCell(cycle[i], board.getCell(cycle[i - 1]));
         }
+        setCell(cycle[0], temp);
+    }
 
-        AxialPosition firstPosition = from.add(ADJACENT_DIRECTIONS[0]);
-        board.set(firstPosition, temp);
+    private void setCell(int index, byte value) {
+        final byte target = solvedBoard.getCell(index);
+        if (board.getCell(index) != target) {
+            misplacedHexCount--;
+        }
+        if (value != target) {
+            misplacedHexCount++;
+        }
+        board.setCell(index, value);
     }
 }
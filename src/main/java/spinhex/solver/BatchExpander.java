@@ -0,0 +1,61 @@
+package spinhex.solver;
+
+import spinhex.model.PackedSpinHex;
+
+/**
+ * Expands a batch of single-word packed boards by every move at once.
+ * <p>
+ * The children of the boards are written into a primitive buffer grouped by
+ * move: the child of {@code boards[i]} by move {@code m} is stored at
+ * {@code children[m * count + i]}, so a level-synchronous search can expand
+ * a whole frontier without creating any objects.
+ * </p>
+ * <p>
+ * {@link #create(PackedSpinHex)} returns a {@code VectorBatchExpander} when
+ * it was compiled (with the {@code vector} Maven profile) and the
+ * {@code jdk.incubator.vector} module is available (it has to be added with
+ * {@code --add-modules jdk.incubator.vector}), and a
+ * {@link ScalarBatchExpander} otherwise.
+ * </p>
+ */
+public interface BatchExpander {
+    /**
+     * Returns the number of children of every board, i.e., the number of moves.
+     *
+     * @return The number of moves
+     */
+    int getMoveCount();
+
+    /**
+     * Applies every move to every board of a batch.
+     *
+     * @param boards   The packed boards to expand
+     * @param count    The number of boards to expand, starting from index 0
+     * @param children The buffer receiving the children, which must hold at
+     *                 least {@code count * getMoveCount()} values
+     */
+    void expand(long[] boards, int count, long[] children);
+
+    /**
+     * Creates the fastest expander available in the running JVM.
+     *
+     * @param kernel The move kernel, which must use single-word boards
+     * @return A vectorized expander if the Vector API is available, a scalar
+     *         expander otherwise
+     * @throws IllegalArgumentException if the kernel uses multi-word boards
+     */
+    static BatchExpander create(PackedSpinHex kernel) {
+        final var scalar = new ScalarBatchExpander(kernel);
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar;
+        }
+        try {
+            // loaded reflectively, so the scalar path never links the Vector API
+            return (BatchExpander) Class.forName("spinhex.solver.VectorBatchExpander")
+                    .getConstructor(PackedSpinHex.class)
+                    .newInstance(kernel);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return scalar;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package spinhex.solver;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import solver.BidirectionalSearch;
+import solver.BreadthFirstSearchModified;
+import solver.IterativeDeepeningAStar;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solves many puzzles concurrently, running the search of every puzzle on its
+ * own virtual thread, and writes the result of a puzzle as soon as its search
+ * finishes.
+ * <p>
+ * The input is a JSON Lines file, holding a {@link Puzzle} per line, e.g.,
+ * {@code {"id": "p1", "start": [[0, 0, 1], ...], "target": [[0, 0, 2], ...]}},
+ * where the optional {@code shape} is the text of a shape file (see
+ * {@link BoardTopology#parse}), and a missing {@code id} defaults to the line
+ * number. Blank lines are skipped. The output is a JSON Lines file holding a
+ * {@link Result} per puzzle, in the order the searches finish.
+ * </p>
+ * <p>
+ * A breadth-first search of the original board keeps millions of states, so
+ * the number of searches running at the same time is bounded by the
+ * parallelism: the input is only read further once a search has finished,
+ * which keeps the memory usage independent of the number of puzzles.
+ * </p>
+ */
+public final class BatchSolver {
+    /**
+     * The default depth limit of the {@link Engine#IDA_STAR} engine. The
+     * hardest puzzle of the original board takes 11 moves (see
+     * {@link TwoBitBreadthFirstSearch}), which leaves room for larger boards.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 20;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * The search algorithms the puzzles can be solved with. Every puzzle is
+     * solved by a new instance of the search.
+     */
+    public enum Engine {
+        /**
+         * The {@link PackedBreadthFirstSearch}.
+         */
+        PACKED_BFS {
+            @Override
+            Search solve(SpinHexModel model, int maxDepth) {
+                var search = new PackedBreadthFirstSearch();
+                return new Search(search.solve(model), search.getExpandedCount());
+            }
+        },
+
+        /**
+         * The {@link SymmetricBreadthFirstSearch}.
+         */
+        SYMMETRIC_BFS {
+            @Override
+            Search solve(SpinHexModel model, int maxDepth) {
+                var search = new SymmetricBreadthFirstSearch();
+                return new Search(search.solve(model), search.getExpandedCount());
+            }
+        },
+
+        /**
+         * The {@link BreadthFirstSearchModified} with a packed visited set.
+         */
+        BFS {
+            @Override
+            Search solve(SpinHexModel model, int maxDepth) {
+                var search = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>();
+                return new Search(search.solve(model, SpinHexModel.packedEncoder()), search.getExpandedCount());
+            }
+        },
+
+        /**
+         * The {@link BidirectionalSearch}.
+         */
+        BIDIRECTIONAL {
+            @Override
+            Search solve(SpinHexModel model, int maxDepth) {
+                var search = new BidirectionalSearch<>(SpinHexModel::inverseOf);
+                return new Search(search.solve(model, model.getSolvedModel()), search.getExpandedCount());
+            }
+        },
+
+        /**
+         * The {@link IterativeDeepeningAStar} guided by the
+         * {@link MisplacedHexesHeuristic}. The color check made before every
+         * search is only a necessary condition of reachability, so the search
+         * gives up at the depth limit of the batch solver, reporting the
+         * puzzles having no solution within the limit unsolved.
+         */
+        IDA_STAR {
+            @Override
+            Search solve(SpinHexModel model, int maxDepth) {
+                var search = new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic(), maxDepth);
+                return new Search(search.solve(model), search.getExpandedCount());
+            }
+        };
+
+        abstract Search solve(SpinHexModel model, int maxDepth);
+    }
+
+    record Search(Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solution, long expandedCount) {
+    }
+
+    /**
+     * A puzzle of the input.
+     *
+     * @param id     the identifier of the puzzle, copied to its result
+     * @param start  the starting board, indexed by (q,s)
+     * @param target the target board, indexed by (q,s)
+     * @param shape  the text of the shape file of the board, or {@code null}
+     *               for a hexagonal board
+     */
+    public record Puzzle(String id, byte[][] start, byte[][] target, String shape) {
+    }
+
+    /**
+     * A move of a solution.
+     *
+     * @param q        the q-coordinate of the pivot
+     * @param s        the s-coordinate of the pivot
+     * @param rotation the direction of the rotation
+     */
+    public record Move(int q, int s, Rotation rotation) {
+    }
+
+    /**
+     * The result of a puzzle. Fields that do not apply, such as the moves of
+     * an unsolvable puzzle, are {@code null} and left out of the output.
+     *
+     * @param id             the identifier of the puzzle
+     * @param engine         the search algorithm used
+     * @param solved         whether a solution was found
+     * @param length         the number of moves of the shortest solution
+     * @param moves          the moves of the shortest solution
+     * @param timeMillis     the time taken by the search, in milliseconds
+     * @param expandedStates the number of states expanded by the search
+     * @param error          the reason the puzzle could not be searched
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(String id, Engine engine, boolean solved, Integer length, List<Move> moves,
+            long timeMillis, long expandedStates, String error) {
+    }
+
+    private final Engine engine;
+    private final int parallelism;
+    private final int maxDepth;
+
+    /**
+     * Creates a batch solver using the {@linkplain #DEFAULT_MAX_DEPTH default
+     * depth limit}.
+     *
+     * @param engine      the search algorithm to solve the puzzles with
+     * @param parallelism the maximum number of searches running at the same
+     *                    time
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public BatchSolver(Engine engine, int parallelism) {
+        this(engine, parallelism, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param engine      the search algorithm to solve the puzzles with
+     * @param parallelism the maximum number of searches running at the same
+     *                    time
+     * @param maxDepth    the length of the longest solution searched for by
+     *                    the engines having no other bound, i.e.,
+     *                    {@link Engine#IDA_STAR}
+     * @throws IllegalArgumentException if the parallelism or the depth limit
+     *                                  is not positive
+     */
+    public BatchSolver(Engine engine, int parallelism, int maxDepth) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Invalid depth limit: " + maxDepth);
+        }
+        this.engine = engine;
+        this.parallelism = parallelism;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Solves the puzzles of the input file, and writes their results to the
+     * output file as their searches finish.
+     *
+     * @param input  the JSON Lines file of the puzzles
+     * @param output the JSON Lines file of the results, which is overwritten
+     * @return the number of puzzles read, i.e., the number of results written
+     * @throws IOException if a file cannot be read or written, or a line of
+     *                     the input is not a valid puzzle; the searches
+     *                     already started are finished first
+     */
+    public int solve(Path input, Path output) throws IOException {
+        var permits = new Semaphore(parallelism);
+        var failure = new AtomicReference<IOException>();
+        var count = 0;
+        try (var lines = Files.newBufferedReader(input);
+                var writer = Files.newBufferedWriter(output);
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var lineNumber = 0;
+            for (var line = lines.readLine(); line != null && failure.get() == null; line = lines.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                var puzzle = parse(line, lineNumber);
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        write(writer, solve(puzzle));
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                count++;
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return count;
+    }
+
+    private static Puzzle parse(String line, int lineNumber) throws IOException {
+        try {
+            var puzzle = MAPPER.readValue(line, Puzzle.class);
+            if (puzzle.start() == null || puzzle.target() == null) {
+                throw new IOException("Missing board on line " + lineNumber);
+            }
+            return puzzle.id() != null ? puzzle
+                    : new Puzzle(String.valueOf(lineNumber), puzzle.start(), puzzle.target(), puzzle.shape());
+        } catch (JsonProcessingException e) {
+            throw new IOException("Invalid puzzle on line " + lineNumber, e);
+        }
+    }
+
+    private static void write(BufferedWriter writer, Result result) throws IOException {
+        var json = MAPPER.writeValueAsString(result);
+        synchronized (writer) {
+            writer.write(json);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Solves a single puzzle. Puzzles that cannot be searched, e.g., having an
+     * invalid shape, missing rows, or boards too large to be packed, do not
+     * throw an exception, but give a result describing the error. Puzzles
+     * whose target is unreachable because of its colors are reported unsolved
+     * without a search.
+     *
+     * @param puzzle the puzzle to solve
+     * @return the result of the puzzle
+     */
+    public Result solve(Puzzle puzzle) {
+        var startTime = System.nanoTime();
+        try {
+            var topology = puzzle.shape() != null ? BoardTopology.parse(puzzle.shape())
+                    : BoardTopology.of(puzzle.start().length);
+            var model = new SpinHexModel(topology, puzzle.start(), puzzle.target());
+            if (!isReachable(model)) {
+                return new Result(puzzle.id(), engine, false, null, null, elapsedMillis(startTime), 0, null);
+            }
+            startTime = System.nanoTime();
+            var search = engine.solve(model, maxDepth);
+            var timeMillis = elapsedMillis(startTime);
+            return search.solution()
+                    .map(node -> new Result(puzzle.id(), engine, true, node.getPath().size() - 1, movesOf(node),
+                            timeMillis, search.expandedCount(), null))
+                    .orElseGet(() -> new Result(puzzle.id(), engine, false, null, null, timeMillis,
+                            search.expandedCount(), null));
+        } catch (RuntimeException e) {
+            return new Result(puzzle.id(), engine, false, null, null, elapsedMillis(startTime), 0, e.toString());
+        }
+    }
+
+    /**
+     * Checks a necessary condition of the target being reachable. The cells
+     * linked by the cycles of the legal moves form groups whose values can only
+     * be permuted within the group, so every group must hold the same values
+     * on both boards. Cells in no cycle, e.g., the empty ones, form groups of
+     * their own, so they must match exactly.
+     */
+    static boolean isReachable(SpinHexModel model) {
+        var board = model.getBoard();
+        var target = model.getSolution();
+        var moves = new MoveTable(board);
+        var groups = new int[board.getCellCount()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = i;
+        }
+        for (int move = 0; move < moves.size(); move++) {
+            for (int k = 1; k < MoveTable.CYCLE_LENGTH; k++) {
+                groups[groupOf(groups, moves.getCycleCell(move, k))] = groupOf(groups, moves.getCycleCell(move, 0));
+            }
+        }
+        var balance = new int[groups.length << Byte.SIZE];
+        for (int i = 0; i < groups.length; i++) {
+            balance[groupOf(groups, i) << Byte.SIZE | board.getCell(i) & 0xFF]++;
+            balance[groupOf(groups, i) << Byte.SIZE | target.getCell(i) & 0xFF]--;
+        }
+        for (int count : balance) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int groupOf(int[] groups, int cell) {
+        while (groups[cell] != cell) {
+            groups[cell] = groups[groups[cell]];
+            cell = groups[cell];
+        }
+        return cell;
+    }
+
+    private static long elapsedMillis(long startTime) {
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    private static List<Move> movesOf(Node<TwoPhaseAction<AxialPosition, Rotation>> node) {
+        return node.getPath().stream()
+                .flatMap(current -> current.getMove().stream())
+                .map(move -> new Move(move.from().q(), move.from().s(), move.action()))
+                .toList();
+    }
+}
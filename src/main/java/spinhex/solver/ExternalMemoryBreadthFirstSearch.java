@@ -0,0 +1,525 @@
+package spinhex.solver;
+
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.MoveTable;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Breadth-first search keeping its layers on disk instead of in memory.
+ * <p>
+ * Every layer is a file of sorted, distinct packed boards (see
+ * {@link PackedSpinHex}), each stored as a fixed-width record of
+ * {@link PackedSpinHex#getWordCount()} words, so boards wider than a single
+ * {@code long}, e.g., the 37 cells of a 7x7 board, are supported. Records are
+ * ordered as unsigned numbers whose least significant word is the first one.
+ * The children of a layer are collected in a
+ * fixed-size buffer, which is radix sorted and written to a run file whenever
+ * it is full. The runs are then merged into the next layer, and duplicates
+ * are detected only at this point: a child is dropped if it occurs in an
+ * earlier run, in the current layer or in the previous layer. Since every
+ * move can be undone, the children of a layer cannot be any older, so the
+ * two last layers are all the visited boards that have to be checked. Layer
+ * and run files are read through memory-mapping.
+ * </p>
+ * <p>
+ * The path to the solved board is rebuilt backward by looking up the
+ * predecessors of each board in the previous layer with binary search,
+ * taking the move having the lowest index. Only the buffer lives on the heap,
+ * so the size of the state space is limited by the disk.
+ * </p>
+ */
+public final class ExternalMemoryBreadthFirstSearch {
+    /**
+     * The default number of boards sorted in memory at once.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 24;
+
+    private static final int RADIX_BITS = 8;
+    private static final int SEGMENT_SIZE = 1 << 27;
+
+    private final Path workDirectory;
+    private final int bufferSize;
+
+    /**
+     * Creates a search storing its files in the specified directory, sorting
+     * {@value #DEFAULT_BUFFER_SIZE} boards in memory at once.
+     *
+     * @param workDirectory the directory of the layer and run files
+     */
+    public ExternalMemoryBreadthFirstSearch(Path workDirectory) {
+        this(workDirectory, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a search storing its files in the specified directory.
+     *
+     * @param workDirectory the directory of the layer and run files
+     * @param bufferSize    the number of boards sorted in memory at once
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public ExternalMemoryBreadthFirstSearch(Path workDirectory, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.workDirectory = workDirectory;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided. The files of the search are deleted when it
+     * finishes.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IOException           if the layer or run files cannot be accessed
+     * @throws IllegalStateException if the buffer of boards does not fit into
+     *                               an array
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solve(SpinHexModel model) throws IOException {
+        final var kernel = new PackedSpinHex(model.getSolution());
+        final var search = new Search(kernel, model.getBoard().getCellCount());
+        Files.createDirectories(workDirectory);
+        try {
+            return search.run(kernel.packWords(model.getBoard()))
+                    .map(moves -> PackedSolutions.toNode(model, kernel.getMoveTable(), moves));
+        } finally {
+            search.deleteFiles();
+        }
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided, and it also prints the solution to the standard
+     * output.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IOException if the layer or run files cannot be accessed
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solveAndPrintSolution(SpinHexModel model)
+            throws IOException {
+        var solution = solve(model);
+        solution.ifPresentOrElse(
+                PackedSolutions::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    /**
+     * Sorts the first {@code count} records of an array in ascending unsigned
+     * order with a least significant digit radix sort. A record is
+     * {@code keyBits.length} consecutive words, the first one being the least
+     * significant, and only the lowest {@code keyBits[word]} bits of each word
+     * are looked at, which must hold the whole word.
+     *
+     * @param values  the records to sort
+     * @param scratch an array at least as long as {@code count} records
+     * @param count   the number of records to sort
+     * @param keyBits the number of significant bits of every word of a record
+     */
+    static void radixSort(long[] values, long[] scratch, int count, int[] keyBits) {
+        final int words = keyBits.length;
+        final int radix = 1 << RADIX_BITS;
+        final int[] counts = new int[radix];
+        long[] from = values;
+        long[] to = scratch;
+        for (int word = 0; word < words; word++) {
+            for (int shift = 0; shift < keyBits[word]; shift += RADIX_BITS) {
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < count; i++) {
+                    counts[(int) (from[i * words + word] >>> shift) & (radix - 1)]++;
+                }
+                for (int digit = 0, sum = 0; digit < radix; digit++) {
+                    final int digitCount = counts[digit];
+                    counts[digit] = sum;
+                    sum += digitCount;
+                }
+                for (int i = 0; i < count; i++) {
+                    final int position = counts[(int) (from[i * words + word] >>> shift) & (radix - 1)]++;
+                    System.arraycopy(from, i * words, to, position * words, words);
+                }
+                final long[] swap = from;
+                from = to;
+                to = swap;
+            }
+        }
+        if (from != values) {
+            System.arraycopy(from, 0, values, 0, count * words);
+        }
+    }
+
+    /**
+     * Compares two records as unsigned numbers, starting from their most
+     * significant, i.e., last word.
+     */
+    static int compare(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        for (int word = words - 1; word >= 0; word--) {
+            final int comparison = Long.compareUnsigned(a[aOffset + word], b[bOffset + word]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private final class Search {
+        private final PackedSpinHex kernel;
+        private final int words;
+        private final int[] keyBits;
+        private final List<Path> layers = new ArrayList<>();
+        private long[] buffer;
+        private long[] scratch;
+
+        private Search(PackedSpinHex kernel, int cellCount) {
+            this.kernel = kernel;
+            this.words = kernel.getWordCount();
+            if ((long) bufferSize * words > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Buffer of " + bufferSize + " boards of " + words
+                        + " words does not fit into an array");
+            }
+            final int cellsPerWord = Long.SIZE / kernel.getBitsPerCell();
+            this.keyBits = new int[words];
+            for (int word = 0; word < words; word++) {
+                final int cells = Math.min(cellsPerWord, cellCount - word * cellsPerWord);
+                keyBits[word] = cells * kernel.getBitsPerCell();
+            }
+        }
+
+        private Optional<int[]> run(long[] start) throws IOException {
+            final var first = layerPath(0);
+            try (var out = openWriter(first)) {
+                writeRecord(out, start, 0);
+            }
+            layers.add(first);
+            if (kernel.isTarget(start)) {
+                return Optional.of(new int[0]);
+            }
+            buffer = new long[bufferSize * words];
+            scratch = new long[bufferSize * words];
+            for (int depth = 0; ; depth++) {
+                final var runs = expand(depth);
+                final var next = layerPath(depth + 1);
+                final var result = merge(runs, depth, next);
+                for (var run : runs) {
+                    Files.delete(run);
+                }
+                layers.add(next);
+                if (result.target != null) {
+                    return Optional.of(rebuildPath(depth + 1, result.target));
+                }
+                if (result.count == 0) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        private List<Path> expand(int depth) throws IOException {
+            final var runs = new ArrayList<Path>();
+            int size = 0;
+            final var layer = new LayerFile(layers.get(depth), words);
+            final var board = new long[words];
+            final var child = new long[words];
+            for (long i = 0; i < layer.count(); i++) {
+                layer.read(i, board);
+                for (int move = 0; move < kernel.size(); move++) {
+                    if (size == bufferSize) {
+                        runs.add(writeRun(depth, runs.size(), size));
+                        size = 0;
+                    }
+                    if (words == 1) {
+                        buffer[size++] = kernel.apply(move, board[0]);
+                    } else {
+                        kernel.apply(move, board, child);
+                        System.arraycopy(child, 0, buffer, size++ * words, words);
+                    }
+                }
+            }
+            if (size > 0) {
+                runs.add(writeRun(depth, runs.size(), size));
+            }
+            return runs;
+        }
+
+        private Path writeRun(int depth, int index, int size) throws IOException {
+            radixSort(buffer, scratch, size, keyBits);
+            final var run = workDirectory.resolve("layer-" + (depth + 1) + "-run-" + index + ".bin");
+            try (var out = openWriter(run)) {
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || compare(buffer, i * words, buffer, (i - 1) * words, words) != 0) {
+                        writeRecord(out, buffer, i * words);
+                    }
+                }
+            }
+            return run;
+        }
+
+        private MergeResult merge(List<Path> runs, int depth, Path next) throws IOException {
+            final var result = new MergeResult();
+            final var inputs = new ArrayList<LayerFile>();
+            for (var run : runs) {
+                inputs.add(new LayerFile(run, words));
+            }
+            final var heap = new RunHeap(inputs, words);
+            final var current = new LayerFile(layers.get(depth), words);
+            final var previous = depth > 0 ? new LayerFile(layers.get(depth - 1), words) : current;
+            long currentIndex = 0;
+            long previousIndex = 0;
+            boolean first = true;
+            final var board = new long[words];
+            final var last = new long[words];
+            try (var out = openWriter(next)) {
+                while (!heap.isEmpty()) {
+                    heap.poll(board);
+                    if (!first && compare(board, 0, last, 0, words) == 0) {
+                        continue;
+                    }
+                    first = false;
+                    System.arraycopy(board, 0, last, 0, words);
+                    currentIndex = current.skipBelow(currentIndex, board);
+                    previousIndex = previous.skipBelow(previousIndex, board);
+                    if (current.isAt(currentIndex, board) || previous.isAt(previousIndex, board)) {
+                        continue;
+                    }
+                    writeRecord(out, board, 0);
+                    result.count++;
+                    if (result.target == null && kernel.isTarget(board)) {
+                        result.target = board.clone();
+                    }
+                }
+            }
+            return result;
+        }
+
+        private int[] rebuildPath(int depth, long[] target) throws IOException {
+            final var moves = new int[depth];
+            var board = target;
+            final var previous = new long[words];
+            for (int k = depth; k > 0; k--) {
+                final var layer = new LayerFile(layers.get(k - 1), words);
+                for (int move = 0; move < kernel.size(); move++) {
+                    kernel.apply(MoveTable.inverse(move), board, previous);
+                    if (layer.contains(previous)) {
+                        moves[k - 1] = move;
+                        board = previous.clone();
+                        break;
+                    }
+                }
+            }
+            return moves;
+        }
+
+        private void writeRecord(DataOutputStream out, long[] values, int offset) throws IOException {
+            for (int word = 0; word < words; word++) {
+                out.writeLong(values[offset + word]);
+            }
+        }
+
+        private Path layerPath(int depth) {
+            return workDirectory.resolve("layer-" + depth + ".bin");
+        }
+
+        private void deleteFiles() throws IOException {
+            for (var layer : layers) {
+                Files.deleteIfExists(layer);
+            }
+        }
+    }
+
+    private static DataOutputStream openWriter(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+    }
+
+    private static final class MergeResult {
+        private long count;
+        private long[] target;
+    }
+
+    /**
+     * A read-only, memory-mapped file of records of {@code words} longs,
+     * mapped in segments of whole records so it may exceed 2 GB. The mappings
+     * are released by the garbage collector.
+     */
+    private static final class LayerFile {
+        private final LongBuffer[] segments;
+        private final int words;
+        private final long recordsPerSegment;
+        private final long count;
+
+        private LayerFile(Path path, int words) throws IOException {
+            this.words = words;
+            this.recordsPerSegment = Math.max(1, SEGMENT_SIZE / words);
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                count = channel.size() / ((long) Long.BYTES * words);
+                segments = new LongBuffer[(int) ((count + recordsPerSegment - 1) / recordsPerSegment)];
+                for (int segment = 0; segment < segments.length; segment++) {
+                    final long offset = segment * recordsPerSegment;
+                    final long length = Math.min(recordsPerSegment, count - offset);
+                    segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, offset * words * Long.BYTES,
+                            length * words * Long.BYTES).asLongBuffer();
+                }
+            }
+        }
+
+        private long count() {
+            return count;
+        }
+
+        private long get(long index, int word) {
+            return segments[(int) (index / recordsPerSegment)]
+                    .get((int) (index % recordsPerSegment) * words + word);
+        }
+
+        private void read(long index, long[] record) {
+            for (int word = 0; word < words; word++) {
+                record[word] = get(index, word);
+            }
+        }
+
+        private int compareAt(long index, long[] record) {
+            for (int word = words - 1; word >= 0; word--) {
+                final int comparison = Long.compareUnsigned(get(index, word), record[word]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+
+        private long skipBelow(long index, long[] record) {
+            while (index < count && compareAt(index, record) < 0) {
+                index++;
+            }
+            return index;
+        }
+
+        private boolean isAt(long index, long[] record) {
+            return index < count && compareAt(index, record) == 0;
+        }
+
+        private boolean contains(long[] record) {
+            long low = 0;
+            long high = count - 1;
+            while (low <= high) {
+                final long middle = (low + high) >>> 1;
+                final int comparison = compareAt(middle, record);
+                if (comparison == 0) {
+                    return true;
+                }
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A binary min-heap of the sorted runs, ordered by their next records,
+     * which are cached in {@code heads}.
+     */
+    private static final class RunHeap {
+        private final List<LayerFile> runs;
+        private final int words;
+        private final long[] positions;
+        private final long[] heads;
+        private final int[] heap;
+        private int size;
+
+        private RunHeap(List<LayerFile> runs, int words) {
+            this.runs = runs;
+            this.words = words;
+            this.positions = new long[runs.size()];
+            this.heads = new long[runs.size() * words];
+            this.heap = new int[runs.size()];
+            for (int run = 0; run < runs.size(); run++) {
+                if (runs.get(run).count() > 0) {
+                    loadHead(run);
+                    heap[size] = run;
+                    siftUp(size++);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void loadHead(int run) {
+            for (int word = 0; word < words; word++) {
+                heads[run * words + word] = runs.get(run).get(positions[run], word);
+            }
+        }
+
+        private int compareHeads(int a, int b) {
+            return compare(heads, a * words, heads, b * words, words);
+        }
+
+        private void poll(long[] record) {
+            final int run = heap[0];
+            System.arraycopy(heads, run * words, record, 0, words);
+            if (++positions[run] == runs.get(run).count()) {
+                heap[0] = heap[--size];
+            } else {
+                loadHead(run);
+            }
+            if (size > 0) {
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                final int parent = (index - 1) / 2;
+                if (compareHeads(heap[parent], heap[index]) <= 0) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                final int left = 2 * index + 1;
+                if (left >= size) {
+                    return;
+                }
+                final int right = left + 1;
+                final int smallest = right < size && compareHeads(heap[right], heap[left]) < 0 ? right : left;
+                if (compareHeads(heap[index], heap[smallest]) <= 0) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            final int swap = heap[a];
+            heap[a] = heap[b];
+            heap[b] = swap;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package spinhex.solver;
+
+import puzzle.State;
+import solver.Heuristic;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+/**
+ * Admissible heuristic for the SpinHex puzzle based on the number of hexes
+ * that differ from the solved configuration.
+ * <p>
+ * A single rotation moves exactly {@value #HEXES_PER_MOVE} hexes, so it can
+ * fix at most that many misplaced hexes, hence
+ * {@code ceil(misplaced / 6)} never overestimates the number of moves left.
+ * </p>
+ */
+public class MisplacedHexesHeuristic implements Heuristic<TwoPhaseAction<AxialPosition, Rotation>> {
+
+    /**
+     * The number of hexes moved by a single rotation.
+     */
+    public static final int HEXES_PER_MOVE = 6;
+
+    /**
+     * Estimates the number of moves needed to solve the puzzle.
+     *
+     * @param state the {@code SpinHexModel} state to estimate
+     * @return the number of misplaced hexes divided by {@value #HEXES_PER_MOVE},
+     *         rounded up
+     */
+    @Override
+    public int estimate(State<TwoPhaseAction<AxialPosition, Rotation>> state) {
+        var misplaced = ((SpinHexModel) state).getMisplacedHexCount();
+        return (misplaced + HEXES_PER_MOVE - 1) / HEXES_PER_MOVE;
+    }
+}
@@ -0,0 +1,141 @@
+package spinhex.solver;
+
+import solver.HashVisitedSet;
+import solver.Node;
+import solver.SearchTree;
+import solver.VisitedSet;
+import spinhex.model.AxialPosition;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Breadth-first search over packed boards (see {@link PackedSpinHex}), keeping
+ * the search tree in a {@link SearchTree} instead of {@code Node} objects.
+ * <p>
+ * Every discovered board is appended to the tree with the index of its parent
+ * and the index of its move, so the tree doubles as the queue of the search:
+ * the nodes are expanded in the order they were added. Only when the solved
+ * board is found is the path replayed into a {@code Node} chain, by walking
+ * the parent indices.
+ * </p>
+ * <p>
+ * Moves making a path redundant are skipped using the
+ * {@linkplain SpinHexMovePruner#forGraphSearch graph search} pruning
+ * automaton, whose state at a node is recovered from the last moves of its
+ * path in the tree.
+ * </p>
+ */
+public final class PackedBreadthFirstSearch {
+    private final Supplier<? extends VisitedSet> visitedSetFactory;
+    private long expandedCount;
+
+    /**
+     * Creates a search keeping the visited boards in a {@link HashVisitedSet}.
+     */
+    public PackedBreadthFirstSearch() {
+        this(HashVisitedSet::new);
+    }
+
+    /**
+     * Creates a search keeping the visited boards in the visited sets created
+     * by the factory, which are closed when a search ends.
+     *
+     * @param visitedSetFactory the factory creating the visited set of a search
+     */
+    public PackedBreadthFirstSearch(Supplier<? extends VisitedSet> visitedSetFactory) {
+        this.visitedSetFactory = visitedSetFactory;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalStateException if the board has too many cells to be
+     *                               packed into a single {@code long}, or too
+     *                               many states for the search tree
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solve(SpinHexModel model) {
+        expandedCount = 0;
+        final var kernel = new PackedSpinHex(model.getSolution());
+        final var pruner = SpinHexMovePruner.forGraphSearch(kernel.getMoveTable());
+        final var history = new int[pruner.getHistoryLength()];
+        final var tree = new SearchTree();
+        final int root = tree.addRoot(kernel.pack(model.getBoard()));
+        if (kernel.isTarget(tree.getState(root))) {
+            return Optional.of(new Node<>(model.clone()));
+        }
+        try (var visited = visitedSetFactory.get()) {
+            visited.add(tree.getState(root));
+            for (int parent = root; parent < tree.size(); parent++) {
+                final long board = tree.getState(parent);
+                expandedCount++;
+                final int pruningState = pruningStateOf(tree, parent, pruner, history);
+                for (int move = 0; move < kernel.size(); move++) {
+                    if (pruner.next(pruningState, move) == SpinHexMovePruner.PRUNED) {
+                        continue;
+                    }
+                    final long child = kernel.apply(move, board);
+                    if (visited.add(child)) {
+                        final int node = tree.add(child, parent, move);
+                        if (kernel.isTarget(child)) {
+                            return Optional.of(PackedSolutions.toNode(model, kernel.getMoveTable(),
+                                    tree.getPathTo(node)));
+                        }
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static int pruningStateOf(SearchTree tree, int node, SpinHexMovePruner pruner, int[] history) {
+        int length = 0;
+        for (int current = node; length < history.length && tree.getParent(current) != SearchTree.NO_PARENT;
+                current = tree.getParent(current)) {
+            history[length++] = tree.getMove(current);
+        }
+        int state = pruner.getInitialState();
+        while (length > 0) {
+            state = pruner.next(state, history[--length]);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search run by this
+     * instance, i.e., the number of states whose children were generated.
+     *
+     * @return the number of states expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided, and it also prints the solution to the standard
+     * output.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalStateException if the board has too many cells to be
+     *                               packed into a single {@code long}, or too
+     *                               many states for the search tree
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solveAndPrintSolution(SpinHexModel model) {
+        var solution = solve(model);
+        solution.ifPresentOrElse(
+                PackedSolutions::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+}
@@ -0,0 +1,47 @@
+package spinhex.solver;
+
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+/**
+ * Converts the move indices found by the packed-board solvers back into
+ * {@code Node} chains of {@code SpinHexModel} states.
+ */
+final class PackedSolutions {
+    private PackedSolutions() {
+    }
+
+    /**
+     * Replays a solution on a copy of the model.
+     *
+     * @param model     the initial state
+     * @param moveTable the moves the indices refer to
+     * @param moves     the indices of the moves of the solution
+     * @return the node of the solved state, whose ancestors are the states
+     *         along the solution
+     */
+    static Node<TwoPhaseAction<AxialPosition, Rotation>> toNode(SpinHexModel model, MoveTable moveTable,
+            int[] moves) {
+        var node = new Node<>(model.clone());
+        for (int move : moves) {
+            final var action = moveTable.getMove(move);
+            final var state = node.getState().clone();
+            state.makeMove(action);
+            node = new Node<>(state, node, action);
+        }
+        return node;
+    }
+
+    /**
+     * Prints the states along the path to a node, starting from the root.
+     *
+     * @param node the last node of the path
+     */
+    static void printPathTo(Node<TwoPhaseAction<AxialPosition, Rotation>> node) {
+        node.getPath().forEach(System.out::println);
+    }
+}
@@ -0,0 +1,218 @@
+package spinhex.solver;
+
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardRanker;
+import spinhex.model.MoveTable;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous breadth-first search expanding every layer in parallel.
+ * <p>
+ * The frontier is a primitive array of packed boards (see
+ * {@link PackedSpinHex}), which is split into chunks expanded by the tasks of
+ * a {@link ForkJoinPool}, each using a {@link BatchExpander}. Duplicates are
+ * detected through a lock-free table holding the distance of every ranked
+ * board (see {@link BoardRanker}) modulo 3 in two bits, updated with
+ * compare-and-set, so the tasks share no locks and only the next frontier has
+ * to be kept besides the table.
+ * </p>
+ * <p>
+ * No parent pointers are stored. Once the solved board is found at depth
+ * {@code d}, the path is rebuilt backward: a neighbor of a board at depth
+ * {@code k} is at depth {@code k - 1} if and only if its residue is
+ * {@code (k - 1) mod 3}, since neighbors are at most one move apart. Among the
+ * candidates the move having the lowest index is chosen, so the solution does
+ * not depend on the scheduling of the tasks.
+ * </p>
+ */
+public final class ParallelBreadthFirstSearch {
+    private static final int UNVISITED = 3;
+    private static final int ENTRIES_PER_WORD = Long.SIZE / 2;
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a search running on the common pool.
+     */
+    public ParallelBreadthFirstSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a search running on the specified pool.
+     *
+     * @param pool The pool expanding the layers
+     */
+    public ParallelBreadthFirstSearch(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalArgumentException if the board has too many colors to be
+     *                                  packed, or too many states for the table
+     * @throws IllegalStateException    if the board has too many cells to be
+     *                                  packed into a single {@code long}
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solve(SpinHexModel model) {
+        final var kernel = new PackedSpinHex(model.getSolution());
+        final var ranker = new BoardRanker(model.getBoard());
+        if (!ranker.canRank(model.getSolution())) {
+            return Optional.empty();
+        }
+        final var search = new Search(kernel, ranker, kernel.pack(model.getSolution()));
+        return search.run(kernel.pack(model.getBoard()))
+                .map(moves -> PackedSolutions.toNode(model, kernel.getMoveTable(), moves));
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided, and it also prints the solution to the standard
+     * output.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solveAndPrintSolution(SpinHexModel model) {
+        var solution = solve(model);
+        solution.ifPresentOrElse(
+                PackedSolutions::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    private final class Search {
+        private final PackedSpinHex kernel;
+        private final BoardRanker ranker;
+        private final BatchExpander expander;
+        private final long target;
+        private final AtomicLongArray residues;
+        private volatile boolean found;
+
+        private Search(PackedSpinHex kernel, BoardRanker ranker, long target) {
+            this.kernel = kernel;
+            this.ranker = ranker;
+            this.expander = BatchExpander.create(kernel);
+            this.target = target;
+            final long words = (ranker.size() + ENTRIES_PER_WORD - 1) / ENTRIES_PER_WORD;
+            if (words > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many states for a residue table: " + ranker.size());
+            }
+            this.residues = new AtomicLongArray((int) words);
+            for (int word = 0; word < residues.length(); word++) {
+                residues.set(word, -1L);
+            }
+        }
+
+        private Optional<int[]> run(long start) {
+            mark(ranker.rankPacked(start), 0);
+            if (kernel.isTarget(start)) {
+                return Optional.of(new int[0]);
+            }
+            long[] frontier = { start };
+            for (int depth = 0; frontier.length > 0; depth++) {
+                frontier = expandLayer(frontier, (depth + 1) % 3);
+                if (found) {
+                    return Optional.of(rebuildPath(depth + 1));
+                }
+            }
+            return Optional.empty();
+        }
+
+        private long[] expandLayer(long[] frontier, int residue) {
+            final var tasks = new ArrayList<Callable<long[]>>();
+            for (int from = 0; from < frontier.length; from += CHUNK_SIZE) {
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(frontier.length, from + CHUNK_SIZE);
+                tasks.add(() -> expandChunk(frontier, chunkFrom, chunkTo, residue));
+            }
+            final var next = new LongArrayList();
+            for (var future : pool.invokeAll(tasks)) {
+                try {
+                    next.addAll(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Search interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Layer expansion failed", e.getCause());
+                }
+            }
+            return next.toArray();
+        }
+
+        private long[] expandChunk(long[] frontier, int from, int to, int residue) {
+            if (found) {
+                return new long[0];
+            }
+            final int count = to - from;
+            final var boards = new long[count];
+            System.arraycopy(frontier, from, boards, 0, count);
+            final var children = new long[count * expander.getMoveCount()];
+            expander.expand(boards, count, children);
+            final var discovered = new LongArrayList(count);
+            for (long child : children) {
+                if (mark(ranker.rankPacked(child), residue)) {
+                    discovered.add(child);
+                    if (kernel.isTarget(child)) {
+                        found = true;
+                    }
+                }
+            }
+            return discovered.toArray();
+        }
+
+        private boolean mark(long rank, int residue) {
+            final int word = (int) (rank / ENTRIES_PER_WORD);
+            final int shift = (int) (rank % ENTRIES_PER_WORD) * 2;
+            long current = residues.get(word);
+            while (((current >>> shift) & 3) == UNVISITED) {
+                final long updated = current & ~((long) (UNVISITED ^ residue) << shift);
+                final long witness = residues.compareAndExchange(word, current, updated);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+            return false;
+        }
+
+        private int residue(long rank) {
+            return (int) (residues.get((int) (rank / ENTRIES_PER_WORD)) >>> ((rank % ENTRIES_PER_WORD) * 2)) & 3;
+        }
+
+        private int[] rebuildPath(int depth) {
+            final var moves = new int[depth];
+            long board = target;
+            for (int k = depth; k > 0; k--) {
+                for (int move = 0; move < kernel.size(); move++) {
+                    final long previous = kernel.apply(MoveTable.inverse(move), board);
+                    if (residue(ranker.rankPacked(previous)) == (k - 1) % 3) {
+                        moves[k - 1] = move;
+                        board = previous;
+                        break;
+                    }
+                }
+            }
+            return moves;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package spinhex.solver;
+
+import org.eclipse.collections.api.LongIterable;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.tinylog.Logger;
+import spinhex.model.BoardTopology;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.PackedSpinHex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A worker of the {@link PartitionedBreadthFirstSearch}, owning the packed
+ * boards whose hash falls into its partition.
+ * <p>
+ * The worker keeps the visited boards of its partition, each with the index of
+ * the move that reached it, and the boards it discovered in the last layer.
+ * Boards are kept, spooled and sent over the socket as fixed-width records of
+ * {@link PackedSpinHex#getWordCount()} longs, so boards wider than a single
+ * {@code long} are supported.
+ * It is driven by the coordinator over a socket: when asked to expand a layer
+ * it applies every move to its frontier and spools the children into one file
+ * per owning partition, and when asked to merge a layer it reads the children
+ * spooled to it by every worker, keeping the unvisited ones as its next
+ * frontier.
+ * </p>
+ * <p>
+ * Workers are started by a
+ * {@link PartitionedBreadthFirstSearch.WorkerLauncher}, either as threads of
+ * the coordinator JVM or as separate processes, possibly on other hosts
+ * sharing the spool directory, with {@code main(host, port)}.
+ * </p>
+ */
+public final class PartitionWorker {
+    static final byte EXPAND = 1;
+    static final byte MERGE = 2;
+    static final byte LOOKUP = 3;
+    static final byte SHUTDOWN = 4;
+
+    /**
+     * The move recorded for the initial board, which has no parent.
+     */
+    static final short ROOT = -1;
+
+    /**
+     * The answer to a lookup of a board the partition has not visited.
+     */
+    static final int NOT_VISITED = -2;
+
+    private final int partition;
+    private final int partitions;
+    private final Path spoolDirectory;
+    private final PackedSpinHex kernel;
+    private final int words;
+    private final int recordSize;
+    private final VisitedTable visited;
+    private LongArrayList frontier = new LongArrayList();
+
+    private PartitionWorker(int partition, int partitions, Path spoolDirectory, PackedSpinHex kernel,
+            long[] start) {
+        this.partition = partition;
+        this.partitions = partitions;
+        this.spoolDirectory = spoolDirectory;
+        this.kernel = kernel;
+        this.words = kernel.getWordCount();
+        this.recordSize = words * Long.BYTES + Short.BYTES;
+        this.visited = new VisitedTable(words);
+        if (partitionOf(start, partitions) == partition) {
+            visited.putIfAbsent(start, ROOT);
+            frontier.addAll(start);
+        }
+    }
+
+    /**
+     * Connects to a coordinator and serves its requests until it shuts the
+     * worker down.
+     *
+     * @param args the host and the port of the coordinator
+     * @throws IOException if the connection to the coordinator fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PartitionWorker <coordinator host> <coordinator port>");
+            System.exit(2);
+        }
+        connectAndRun(args[0], Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Connects to a coordinator and serves its requests until it shuts the
+     * worker down.
+     *
+     * @param host the host of the coordinator
+     * @param port the port of the coordinator
+     * @throws IOException if the connection to the coordinator fails
+     */
+    static void connectAndRun(String host, int port) throws IOException {
+        try (var socket = new Socket(host, port);
+                var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            final int partition = in.readInt();
+            final int partitions = in.readInt();
+            final var spoolDirectory = Path.of(in.readUTF());
+            final var target = new HexagonalGrid(BoardTopology.parse(in.readUTF()));
+            final int cellCount = in.readInt();
+            for (int i = 0; i < cellCount; i++) {
+                target.setCell(i, in.readByte());
+            }
+            final var kernel = new PackedSpinHex(target, in.readInt());
+            final var start = readBoard(in, kernel.getWordCount());
+            new PartitionWorker(partition, partitions, spoolDirectory, kernel, start).serve(in, out);
+        }
+    }
+
+    /**
+     * Returns the partition owning a packed board, hashing every word of it.
+     *
+     * @param board      the words of the packed board
+     * @param partitions the number of partitions
+     * @return the index of the owning partition
+     */
+    static int partitionOf(long[] board, int partitions) {
+        long hash = 0;
+        for (long word : board) {
+            hash = (hash + word) * 0x9E3779B97F4A7C15L;
+        }
+        hash ^= hash >>> 32;
+        return (int) Long.remainderUnsigned(hash, partitions);
+    }
+
+    /**
+     * Reads the words of a packed board.
+     *
+     * @param in    the stream to read from
+     * @param words the number of words of a board
+     * @return the words of the board
+     * @throws IOException if the stream cannot be read
+     */
+    static long[] readBoard(DataInputStream in, int words) throws IOException {
+        final var board = new long[words];
+        for (int word = 0; word < words; word++) {
+            board[word] = in.readLong();
+        }
+        return board;
+    }
+
+    /**
+     * Writes the words of a packed board.
+     *
+     * @param out   the stream to write to
+     * @param board the words of the board
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeBoard(DataOutputStream out, long[] board) throws IOException {
+        for (long word : board) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Returns the file holding the children spooled from one partition to
+     * another while expanding a layer.
+     *
+     * @param spoolDirectory the spool directory of the search
+     * @param depth          the depth of the expanded layer
+     * @param from           the partition expanding the boards
+     * @param to             the partition owning the children
+     * @return the path of the spool file
+     */
+    static Path spoolFile(Path spoolDirectory, int depth, int from, int to) {
+        return layerDirectory(spoolDirectory, depth).resolve(from + "-" + to + ".spool");
+    }
+
+    /**
+     * Returns the directory holding the spool files of a layer.
+     *
+     * @param spoolDirectory the spool directory of the search
+     * @param depth          the depth of the expanded layer
+     * @return the path of the layer directory
+     */
+    static Path layerDirectory(Path spoolDirectory, int depth) {
+        return spoolDirectory.resolve("layer-" + depth);
+    }
+
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            final byte command = in.readByte();
+            switch (command) {
+                case EXPAND -> out.writeLong(expand(in.readInt()));
+                case MERGE -> {
+                    final boolean found = merge(in.readInt());
+                    out.writeLong(frontier.size() / words);
+                    out.writeBoolean(found);
+                }
+                case LOOKUP -> out.writeInt(visited.get(readBoard(in, words)));
+                case SHUTDOWN -> {
+                    return;
+                }
+                default -> throw new IOException("Unknown command: " + command);
+            }
+            out.flush();
+        }
+    }
+
+    private long expand(int depth) throws IOException {
+        Files.createDirectories(layerDirectory(spoolDirectory, depth));
+        final var spools = new DataOutputStream[partitions];
+        try {
+            for (int to = 0; to < partitions; to++) {
+                spools[to] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(spoolFile(spoolDirectory, depth, partition, to))));
+            }
+            final var board = new long[words];
+            final var child = new long[words];
+            final int count = frontier.size() / words;
+            for (int i = 0; i < count; i++) {
+                for (int word = 0; word < words; word++) {
+                    board[word] = frontier.get(i * words + word);
+                }
+                for (int move = 0; move < kernel.size(); move++) {
+                    kernel.apply(move, board, child);
+                    final var spool = spools[partitionOf(child, partitions)];
+                    writeBoard(spool, child);
+                    spool.writeShort(move);
+                }
+            }
+            return (long) count * kernel.size();
+        } finally {
+            for (var spool : spools) {
+                if (spool != null) {
+                    spool.close();
+                }
+            }
+        }
+    }
+
+    private boolean merge(int depth) throws IOException {
+        final var next = new LongArrayList();
+        boolean found = false;
+        for (int from = 0; from < partitions; from++) {
+            final var file = spoolFile(spoolDirectory, depth, from, partition);
+            final long records = Files.size(file) / recordSize;
+            try (var spool = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (long i = 0; i < records; i++) {
+                    final var child = readBoard(spool, words);
+                    final short move = spool.readShort();
+                    if (visited.putIfAbsent(child, move)) {
+                        next.addAll(child);
+                        found |= kernel.isTarget(child);
+                    }
+                }
+            }
+            Files.delete(file);
+        }
+        frontier = next;
+        return found;
+    }
+
+    /**
+     * Returns a class path for starting workers in new JVMs: the class path of
+     * the current JVM, followed by the locations the worker classes were
+     * loaded from, which may differ from it when the current JVM was started
+     * by a launcher, e.g., a test runner.
+     *
+     * @return the class path of the worker processes
+     */
+    static String classPath() {
+        final var entries = new LinkedHashSet<String>();
+        entries.add(System.getProperty("java.class.path"));
+        for (var type : List.of(PartitionWorker.class, LongArrayList.class, LongIterable.class, Logger.class)) {
+            final var source = type.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                try {
+                    entries.add(Path.of(source.getLocation().toURI()).toString());
+                } catch (URISyntaxException e) {
+                    // not a file location, the class path has to cover it
+                }
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Runs a worker on a new daemon thread of the current JVM.
+     *
+     * @param host the host of the coordinator
+     * @param port the port of the coordinator
+     */
+    static void startThread(String host, int port) {
+        Thread.ofPlatform().daemon().name("partition-worker").start(() -> {
+            try {
+                connectAndRun(host, port);
+            } catch (IOException e) {
+                Logger.error(e, "Partition worker failed");
+            }
+        });
+    }
+
+    /**
+     * The visited boards of a partition with the moves that reached them, in
+     * an open-addressing table with linear probing, holding the words of the
+     * boards in one array, and the moves in another, where
+     * {@link #NOT_VISITED} marks an empty slot.
+     */
+    private static final class VisitedTable {
+        private static final double MAX_LOAD_FACTOR = 0.5;
+
+        private final int words;
+        private long[] boards;
+        private short[] moves;
+        private int mask;
+        private int size;
+
+        private VisitedTable(int words) {
+            this.words = words;
+            allocate(1 << 10);
+        }
+
+        private void allocate(int capacity) {
+            boards = new long[capacity * words];
+            moves = new short[capacity];
+            Arrays.fill(moves, (short) NOT_VISITED);
+            mask = capacity - 1;
+        }
+
+        private static int hash(long[] board) {
+            long hash = 0;
+            for (long word : board) {
+                hash = (hash ^ word) * 0xFF51AFD7ED558CCDL;
+                hash ^= hash >>> 33;
+            }
+            return (int) hash;
+        }
+
+        private int slotOf(long[] board) {
+            for (int slot = hash(board) & mask; ; slot = (slot + 1) & mask) {
+                if (moves[slot] == NOT_VISITED || Arrays.equals(boards, slot * words, (slot + 1) * words,
+                        board, 0, words)) {
+                    return slot;
+                }
+            }
+        }
+
+        /**
+         * Returns the move that reached a board, or {@link #NOT_VISITED}.
+         */
+        private int get(long[] board) {
+            return moves[slotOf(board)];
+        }
+
+        /**
+         * Adds a board with the move that reached it, unless it is visited
+         * already.
+         *
+         * @return whether the board was added
+         */
+        private boolean putIfAbsent(long[] board, short move) {
+            final int slot = slotOf(board);
+            if (moves[slot] != NOT_VISITED) {
+                return false;
+            }
+            System.arraycopy(board, 0, boards, slot * words, words);
+            moves[slot] = move;
+            if (++size > MAX_LOAD_FACTOR * (mask + 1)) {
+                rehash();
+            }
+            return true;
+        }
+
+        private void rehash() {
+            final var oldBoards = boards;
+            final var oldMoves = moves;
+            if (oldMoves.length > Integer.MAX_VALUE / 2 / words) {
+                throw new IllegalStateException("Too many boards in a partition: " + size);
+            }
+            allocate(oldMoves.length << 1);
+            final var board = new long[words];
+            for (int slot = 0; slot < oldMoves.length; slot++) {
+                if (oldMoves[slot] != NOT_VISITED) {
+                    System.arraycopy(oldBoards, slot * words, board, 0, words);
+                    final int newSlot = slotOf(board);
+                    System.arraycopy(board, 0, boards, newSlot * words, words);
+                    moves[newSlot] = oldMoves[slot];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package spinhex.solver;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.MoveTable;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Breadth-first search whose visited boards are partitioned among several
+ * workers, so the state space does not have to fit into the heap of a single
+ * JVM.
+ * <p>
+ * Every packed board (see {@link PackedSpinHex}), which may take several
+ * words, is owned by the worker the hash of all its words is mapped to. The
+ * cells are packed into as few bits as the colors of the puzzle need. The
+ * coordinator drives the workers layer by layer: first every worker expands
+ * its own frontier and spools the children into files grouped by owner, then
+ * every worker merges the children spooled to it, keeping the boards it has
+ * not visited yet. The coordinator only exchanges
+ * commands and counters with the workers over sockets, the boards themselves
+ * travel through the spool directory, which therefore has to be shared when
+ * the workers run on several hosts.
+ * </p>
+ * <p>
+ * Workers remember the move that reached each of their boards, so once a
+ * worker reports the solved board, the coordinator rebuilds the path by asking
+ * the owner of each board for its move, and undoing it.
+ * </p>
+ */
+public final class PartitionedBreadthFirstSearch {
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final int partitions;
+    private final Path spoolDirectory;
+    private final InetAddress bindAddress;
+    private final WorkerLauncher launcher;
+
+    /**
+     * Starts the workers of a search.
+     */
+    @FunctionalInterface
+    public interface WorkerLauncher {
+        /**
+         * Starts a worker, which has to connect to the coordinator at the
+         * specified address.
+         *
+         * @param host the host of the coordinator
+         * @param port the port of the coordinator
+         * @throws IOException if the worker cannot be started
+         */
+        void launch(String host, int port) throws IOException;
+
+        /**
+         * Runs every worker on a thread of the current JVM.
+         *
+         * @return a launcher starting worker threads
+         */
+        static WorkerLauncher inProcess() {
+            return PartitionWorker::startThread;
+        }
+
+        /**
+         * Runs every worker in a new JVM on the local host, using the class
+         * path of the current JVM, extended with the locations the worker and
+         * its dependencies were loaded from.
+         *
+         * @return a launcher starting worker processes
+         */
+        static WorkerLauncher localProcesses() {
+            return (host, port) -> {
+                final var command = new ArrayList<String>();
+                command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+                if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+                    command.add("--enable-preview");
+                }
+                command.addAll(List.of("-cp", PartitionWorker.classPath(),
+                        PartitionWorker.class.getName(), host, String.valueOf(port)));
+                new ProcessBuilder(command).inheritIO().start();
+            };
+        }
+
+        /**
+         * Starts nothing, the workers are expected to be started by other
+         * means, e.g., on other hosts with
+         * {@code java spinhex.solver.PartitionWorker <host> <port>}.
+         *
+         * @return a launcher waiting for external workers
+         */
+        static WorkerLauncher external() {
+            return (host, port) -> System.out.println("Waiting for " + PartitionWorker.class.getName()
+                    + " workers to connect to " + host + ":" + port);
+        }
+    }
+
+    /**
+     * Creates a search whose coordinator listens on the loopback address.
+     *
+     * @param partitions     the number of workers
+     * @param spoolDirectory the directory the children are spooled into
+     * @param launcher       the launcher starting the workers
+     * @throws IllegalArgumentException if the number of workers is not positive
+     */
+    public PartitionedBreadthFirstSearch(int partitions, Path spoolDirectory, WorkerLauncher launcher) {
+        this(partitions, spoolDirectory, InetAddress.getLoopbackAddress(), launcher);
+    }
+
+    /**
+     * Creates a search whose coordinator listens on the specified address,
+     * which has to be reachable by every worker.
+     *
+     * @param partitions     the number of workers
+     * @param spoolDirectory the directory the children are spooled into, shared
+     *                       by every worker
+     * @param bindAddress    the address the coordinator listens on
+     * @param launcher       the launcher starting the workers
+     * @throws IllegalArgumentException if the number of workers is not positive
+     */
+    public PartitionedBreadthFirstSearch(int partitions, Path spoolDirectory, InetAddress bindAddress,
+            WorkerLauncher launcher) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Invalid number of partitions: " + partitions);
+        }
+        this.partitions = partitions;
+        this.spoolDirectory = spoolDirectory.toAbsolutePath();
+        this.bindAddress = bindAddress;
+        this.launcher = launcher;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IOException              if the workers cannot be started, a
+     *                                  worker fails, or the spool files cannot
+     *                                  be accessed
+     * @throws IllegalArgumentException if the board has more moves than a
+     *                                  {@code short} can index
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solve(SpinHexModel model) throws IOException {
+        final int bitsPerCell = bitsPerCell(model.getBoard(), model.getSolution());
+        final var kernel = new PackedSpinHex(model.getSolution(), bitsPerCell);
+        if (kernel.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many moves: " + kernel.size());
+        }
+        final var start = kernel.packWords(model.getBoard());
+        final var target = kernel.packWords(model.getSolution());
+        if (Arrays.equals(start, target)) {
+            return Optional.of(new Node<>(model.clone()));
+        }
+        Files.createDirectories(spoolDirectory);
+        final var workers = new ArrayList<Worker>();
+        try (var server = new ServerSocket(0, partitions, bindAddress)) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int i = 0; i < partitions; i++) {
+                launcher.launch(bindAddress.getHostAddress(), server.getLocalPort());
+            }
+            for (int partition = 0; partition < partitions; partition++) {
+                final var worker = new Worker(server.accept());
+                workers.add(worker);
+                worker.hello(partition, model, bitsPerCell, start);
+            }
+            return search(workers, kernel, target)
+                    .map(moves -> PackedSolutions.toNode(model, kernel.getMoveTable(), moves));
+        } finally {
+            for (var worker : workers) {
+                worker.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bits a cell of the boards is packed into, i.e., as
+     * many as the largest cell value needs, like {@code PackedHexagonalGrid}.
+     */
+    private static int bitsPerCell(HexagonalGrid... boards) {
+        int maxValue = 0;
+        for (var board : boards) {
+            for (int i = 0; i < board.getCellCount(); i++) {
+                maxValue = Math.max(maxValue, board.getCell(i) & 0xFF);
+            }
+        }
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided, and it also prints the solution to the standard
+     * output.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IOException if the workers cannot be started, a worker fails, or
+     *                     the spool files cannot be accessed
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solveAndPrintSolution(SpinHexModel model)
+            throws IOException {
+        var solution = solve(model);
+        solution.ifPresentOrElse(
+                PackedSolutions::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+
+    private Optional<int[]> search(List<Worker> workers, PackedSpinHex kernel, long[] target) throws IOException {
+        for (int depth = 0; ; depth++) {
+            for (var worker : workers) {
+                worker.send(PartitionWorker.EXPAND, depth);
+            }
+            for (var worker : workers) {
+                worker.in.readLong();
+            }
+            for (var worker : workers) {
+                worker.send(PartitionWorker.MERGE, depth);
+            }
+            long discovered = 0;
+            boolean found = false;
+            for (var worker : workers) {
+                discovered += worker.in.readLong();
+                found |= worker.in.readBoolean();
+            }
+            Files.deleteIfExists(PartitionWorker.layerDirectory(spoolDirectory, depth));
+            if (found) {
+                return Optional.of(rebuildPath(workers, kernel, target));
+            }
+            if (discovered == 0) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private int[] rebuildPath(List<Worker> workers, PackedSpinHex kernel, long[] target) throws IOException {
+        final var moves = new IntArrayList();
+        var board = target;
+        for (int move = lookup(workers, board); move != PartitionWorker.ROOT; move = lookup(workers, board)) {
+            if (move == PartitionWorker.NOT_VISITED) {
+                throw new IOException("Board missing from its partition: " + Arrays.toString(board));
+            }
+            moves.add(move);
+            final var parent = new long[board.length];
+            kernel.apply(MoveTable.inverse(move), board, parent);
+            board = parent;
+        }
+        return moves.reverseThis().toArray();
+    }
+
+    private int lookup(List<Worker> workers, long[] board) throws IOException {
+        final var worker = workers.get(PartitionWorker.partitionOf(board, partitions));
+        worker.out.writeByte(PartitionWorker.LOOKUP);
+        PartitionWorker.writeBoard(worker.out, board);
+        worker.out.flush();
+        return worker.in.readInt();
+    }
+
+    private final class Worker implements Closeable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Worker(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void hello(int partition, SpinHexModel model, int bitsPerCell, long[] start) throws IOException {
+            final var target = model.getSolution();
+            out.writeInt(partition);
+            out.writeInt(partitions);
+            out.writeUTF(spoolDirectory.toString());
+            out.writeUTF(target.getTopology().toString());
+            out.writeInt(target.getCellCount());
+            for (int i = 0; i < target.getCellCount(); i++) {
+                out.writeByte(target.getCell(i));
+            }
+            out.writeInt(bitsPerCell);
+            PartitionWorker.writeBoard(out, start);
+            out.flush();
+        }
+
+        private void send(byte command, int depth) throws IOException {
+            out.writeByte(command);
+            out.writeInt(depth);
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            try (socket) {
+                out.writeByte(PartitionWorker.SHUTDOWN);
+                out.flush();
+            } catch (IOException e) {
+                // the worker is gone already, there is nothing to shut down
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package spinhex.solver;
+
+import puzzle.State;
+import solver.Heuristic;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-color pattern databases of the SpinHex puzzle.
+ * <p>
+ * Projecting a board onto a single color abstracts away every other color,
+ * leaving only the set of cells holding that color. For the original board
+ * this space has {@code C(19,6) = 27,132} placements for red or green and
+ * {@code C(19,7) = 50,388} for blue. Every rotation of the real puzzle is also
+ * a rotation of the projected puzzle, so the exact distance of a projection
+ * from the projected target never overestimates the distance of the board.
+ * The database stores one such table per color, and estimates the distance
+ * of a board with the maximum of its per-color distances.
+ * </p>
+ * <p>
+ * The tables are computed by a backward breadth-first search from the solved
+ * board, and can be written to a compact binary file, which is loaded by
+ * memory-mapping it, so no parsing is needed on startup. The file also holds
+ * the shape and the solved board the tables were built for, so tables of
+ * another puzzle are never mistaken for matching ones.
+ * </p>
+ */
+public final class PatternDatabase implements Heuristic<TwoPhaseAction<AxialPosition, Rotation>> {
+    private static final int MAGIC = 0x53485044; // "SHPD"
+    // version 1 did not store the shape and the solved board
+    private static final int VERSION = 2;
+    // followed by the length and the UTF-8 bytes of the shape file, and the solved board
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int TABLE_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final byte UNREACHABLE = -1;
+
+    private final HexagonalGrid target;
+    private final List<Table> tables;
+
+    private PatternDatabase(HexagonalGrid target, List<Table> tables) {
+        this.target = target;
+        this.tables = tables;
+    }
+
+    /**
+     * Builds the pattern databases for every color of the solved board of the
+     * specified model.
+     *
+     * @param model The model whose solved board and legal moves are used
+     * @return The pattern databases of the model
+     * @throws IllegalArgumentException if the board has more than 64 cells, or
+     *                                  a color needs more than
+     *                                  {@value Byte#MAX_VALUE} moves
+     */
+    public static PatternDatabase build(SpinHexModel model) {
+        final var target = model.getSolution();
+        if (target.getCellCount() > Long.SIZE) {
+            throw new IllegalArgumentException("Board has too many cells: " + target.getCellCount());
+        }
+        final var moveTable = new MoveTable(model.getBoard());
+        final var tables = new ArrayList<Table>();
+        for (int color = 0; color <= Byte.MAX_VALUE; color++) {
+            final long targetMask = target.getValueMask((byte) color);
+            if (targetMask != 0) {
+                tables.add(Table.build((byte) color, targetMask, target.getCellCount(), moveTable));
+            }
+        }
+        return new PatternDatabase(target, List.copyOf(tables));
+    }
+
+    /**
+     * Loads pattern databases from a file written by {@link #write(Path)}.
+     * <p>
+     * The file is memory-mapped read-only, the lookups read the mapping
+     * directly.
+     * </p>
+     *
+     * @param path The path of the file
+     * @return The pattern databases stored in the file
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    public static PatternDatabase load(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a pattern database file: " + path);
+            }
+            final int size = buffer.getInt(8);
+            final int cellCount = buffer.getInt(12);
+            final int tableCount = buffer.getInt(16);
+            int offset = HEADER_SIZE;
+            final HexagonalGrid target;
+            try {
+                final var shape = new byte[buffer.getInt(offset)];
+                buffer.get(offset + Integer.BYTES, shape);
+                offset += Integer.BYTES + shape.length;
+                target = new HexagonalGrid(shape.length == 0 ? BoardTopology.of(size)
+                        : BoardTopology.parse(new String(shape, StandardCharsets.UTF_8)));
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Invalid board shape in pattern database file: " + path, e);
+            }
+            if (target.getSize() != size || target.getCellCount() != cellCount || cellCount > Long.SIZE) {
+                throw new IOException("Invalid board size in pattern database file: " + path);
+            }
+            if (offset + cellCount > buffer.limit()) {
+                throw new IOException("Truncated pattern database file: " + path);
+            }
+            for (int i = 0; i < cellCount; i++) {
+                target.setCell(i, buffer.get(offset + i));
+            }
+            offset += cellCount;
+            final var tables = new ArrayList<Table>();
+            for (int i = 0; i < tableCount; i++) {
+                if (offset + TABLE_HEADER_SIZE > buffer.limit()) {
+                    throw new IOException("Truncated pattern database file: " + path);
+                }
+                final int color = buffer.getInt(offset);
+                final int tableCellCount = buffer.getInt(offset + 4);
+                final long targetMask = buffer.getLong(offset + 8);
+                final int entries = buffer.getInt(offset + 16);
+                offset += TABLE_HEADER_SIZE;
+                if (color != (byte) color || tableCellCount != cellCount || targetMask == 0
+                        || targetMask != target.getValueMask((byte) color)) {
+                    throw new IOException("Table does not match the solved board in pattern database file: " + path);
+                }
+                final int pieces = Long.bitCount(targetMask);
+                if (entries != Table.binomials(cellCount, pieces)[cellCount][pieces]) {
+                    throw new IOException("Invalid table length in pattern database file: " + path);
+                }
+                if (offset + entries > buffer.limit()) {
+                    throw new IOException("Truncated pattern database file: " + path);
+                }
+                final var table = new Table((byte) color, targetMask, cellCount, buffer.slice(offset, entries));
+                if (!table.isValid()) {
+                    throw new IOException("Invalid distances in pattern database file: " + path);
+                }
+                tables.add(table);
+                offset += entries;
+            }
+            if (offset != buffer.limit()) {
+                throw new IOException("Trailing data in pattern database file: " + path);
+            }
+            return new PatternDatabase(target, List.copyOf(tables));
+        }
+    }
+
+    /**
+     * Writes the pattern databases to a file, overwriting it if it exists.
+     *
+     * @param path The path of the file
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void write(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var topology = target.getTopology();
+            final var shape = topology.isHexagon() ? new byte[0]
+                    : topology.toString().getBytes(StandardCharsets.UTF_8);
+            final var header = ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + shape.length + target.getCellCount())
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).putInt(VERSION).putInt(target.getSize()).putInt(target.getCellCount())
+                    .putInt(tables.size())
+                    .putInt(shape.length).put(shape);
+            for (int i = 0; i < target.getCellCount(); i++) {
+                header.put(target.getCell(i));
+            }
+            writeFully(channel, header.flip());
+            for (var table : tables) {
+                final var tableHeader = ByteBuffer.allocate(TABLE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(table.color).putInt(table.cellCount).putLong(table.targetMask)
+                        .putInt(table.distances.limit())
+                        .flip();
+                writeFully(channel, tableHeader);
+                writeFully(channel, table.distances.duplicate().clear());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Checks whether the databases were built for the shape and the solved
+     * board of the specified model, and the current board of the model has
+     * the same number of hexes of every color.
+     *
+     * @param model The model to check
+     * @return {@code true} if the databases can be used as a heuristic for the
+     *         model, {@code false} otherwise
+     */
+    public boolean matches(SpinHexModel model) {
+        return target.equals(model.getSolution()) && tables.stream()
+                .allMatch(table -> Long.bitCount(model.getColorMask(table.color)) == table.pieces);
+    }
+
+    /**
+     * Returns the number of per-color tables.
+     *
+     * @return The number of tables
+     */
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    /**
+     * Returns the exact number of moves needed to move the hexes of a color to
+     * their target cells, ignoring every other color.
+     *
+     * @param color The color of the table to look up
+     * @param board The board to look up
+     * @return The distance of the projected board, or {@code -1} if there is no
+     *         table for the color or the projection is unreachable
+     */
+    public int distance(byte color, HexagonalGrid board) {
+        for (var table : tables) {
+            if (table.color == color) {
+                return table.distance(board.getValueMask(color));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Estimates the number of moves needed to solve the puzzle with the
+     * maximum of the per-color distances. If the cells of any color cannot be
+     * moved to their target cells, neither can the whole board.
+     *
+     * @param state the {@code SpinHexModel} state to estimate
+     * @return a lower bound of the number of moves needed to solve the puzzle,
+     *         or {@link #UNSOLVABLE} if a color cannot reach its target cells
+     */
+    @Override
+    public int estimate(State<TwoPhaseAction<AxialPosition, Rotation>> state) {
+        final var model = (SpinHexModel) state;
+        int estimate = 0;
+        for (var table : tables) {
+            final int distance = table.distance(model.getColorMask(table.color));
+            if (distance < 0) {
+                return UNSOLVABLE;
+            }
+            estimate = Math.max(estimate, distance);
+        }
+        return estimate;
+    }
+
+    /**
+     * The distance table of a single color, indexed by the combinatorial rank
+     * of the set of cells holding the color.
+     */
+    private static final class Table {
+        private final byte color;
+        private final long targetMask;
+        private final int cellCount;
+        private final int pieces;
+        private final long[][] binomials;
+        private final ByteBuffer distances;
+
+        private Table(byte color, long targetMask, int cellCount, ByteBuffer distances) {
+            this.color = color;
+            this.targetMask = targetMask;
+            this.cellCount = cellCount;
+            this.pieces = Long.bitCount(targetMask);
+            this.binomials = binomials(cellCount, pieces);
+            this.distances = distances;
+        }
+
+        private static Table build(byte color, long targetMask, int cellCount, MoveTable moveTable) {
+            final int pieces = Long.bitCount(targetMask);
+            final long entries = binomials(cellCount, pieces)[cellCount][pieces];
+            if (entries > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many placements for color " + color);
+            }
+            final var distances = new byte[(int) entries];
+            Arrays.fill(distances, UNREACHABLE);
+            final var table = new Table(color, targetMask, cellCount, ByteBuffer.wrap(distances));
+            final int[] queue = new int[distances.length];
+            int head = 0;
+            int tail = 0;
+            final int start = table.rank(targetMask);
+            distances[start] = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                final int current = queue[head++];
+                final long mask = table.unrank(current);
+                for (int move = 0; move < moveTable.size(); move++) {
+                    final int next = table.rank(moveTable.apply(move, mask));
+                    if (distances[next] == UNREACHABLE) {
+                        if (distances[current] == Byte.MAX_VALUE) {
+                            throw new IllegalArgumentException("Distances of color " + color
+                                    + " do not fit into a byte");
+                        }
+                        distances[next] = (byte) (distances[current] + 1);
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            return table;
+        }
+
+        private static long[][] binomials(int n, int k) {
+            final var binomials = new long[n + 1][k + 1];
+            for (int i = 0; i <= n; i++) {
+                binomials[i][0] = 1;
+                for (int j = 1; j <= Math.min(i, k); j++) {
+                    binomials[i][j] = binomials[i - 1][j - 1] + binomials[i - 1][j];
+                }
+            }
+            return binomials;
+        }
+
+        private int rank(long mask) {
+            long rank = 0;
+            int j = 1;
+            for (long rest = mask; rest != 0; rest &= rest - 1, j++) {
+                rank += binomials[Long.numberOfTrailingZeros(rest)][j];
+            }
+            return (int) rank;
+        }
+
+        private long unrank(int rank) {
+            long mask = 0;
+            long rest = rank;
+            for (int j = pieces, cell = cellCount - 1; j > 0; j--) {
+                while (binomials[cell][j] > rest) {
+                    cell--;
+                }
+                rest -= binomials[cell][j];
+                mask |= 1L << cell;
+                cell--;
+            }
+            return mask;
+        }
+
+        /**
+         * Checks that every entry is a distance or unreachable, and the
+         * target placement has distance 0.
+         */
+        private boolean isValid() {
+            for (int i = 0; i < distances.limit(); i++) {
+                if (distances.get(i) < UNREACHABLE) {
+                    return false;
+                }
+            }
+            return distances.get(rank(targetMask)) == 0;
+        }
+
+        private int distance(long mask) {
+            if (Long.bitCount(mask) != pieces) {
+                return -1;
+            }
+            return distances.get(rank(mask));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package spinhex.solver;
+
+import spinhex.model.PackedSpinHex;
+
+/**
+ * Batch expander applying the moves one board at a time with
+ * {@link PackedSpinHex#apply(int, long)}. Used when the Vector API is not
+ * available, and as the reference of the vectorized expander.
+ */
+public final class ScalarBatchExpander implements BatchExpander {
+    private final PackedSpinHex kernel;
+
+    /**
+     * Creates an expander for the moves of the specified kernel.
+     *
+     * @param kernel The move kernel, which must use single-word boards
+     * @throws IllegalArgumentException if the kernel uses multi-word boards
+     */
+    public ScalarBatchExpander(PackedSpinHex kernel) {
+        if (kernel.getWordCount() != 1) {
+            throw new IllegalArgumentException("Batch expansion needs single-word boards");
+        }
+        this.kernel = kernel;
+    }
+
+    @Override
+    public int getMoveCount() {
+        return kernel.size();
+    }
+
+    @Override
+    public void expand(long[] boards, int count, long[] children) {
+        final int moves = kernel.size();
+        for (int i = 0; i < count; i++) {
+            final long board = boards[i];
+            for (int move = 0; move < moves; move++) {
+                children[move * count + i] = kernel.apply(move, board);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package spinhex.solver;
+
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import solver.MovePruner;
+import spinhex.model.AxialPosition;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+/**
+ * Move pruning automaton of the SpinHex puzzle, compiled into a transition
+ * table from the moves of a {@link MoveTable}.
+ * <p>
+ * The automaton remembers the last move and how many times it was repeated in
+ * a row. Rotating around a pivot six times is the identity, so the following
+ * sequences on the same pivot are redundant:
+ * </p>
+ * <ul>
+ * <li>a rotation followed by the opposite rotation, which is a no-op</li>
+ * <li>four rotations in the same direction, which equal two rotations in the
+ * opposite direction</li>
+ * <li>three counterclockwise rotations, which equal three clockwise rotations
+ * (tree search only)</li>
+ * </ul>
+ * <p>
+ * Rotations around pivots whose neighborhoods are disjoint commute, so in tree
+ * search only one order of them is allowed: a move directly following a
+ * commuting move with a higher pivot index is redundant.
+ * </p>
+ * <p>
+ * The {@linkplain #forGraphSearch(MoveTable) graph search} automaton only
+ * prunes the sequences having strictly shorter equivalents, which is safe
+ * with duplicate detection, while the {@linkplain #forTreeSearch(MoveTable)
+ * tree search} automaton prunes every redundant sequence, for depth-first
+ * searches like IDA*.
+ * </p>
+ */
+public final class SpinHexMovePruner implements MovePruner<TwoPhaseAction<AxialPosition, Rotation>> {
+    private static final int MAX_RUN = 3;
+
+    private final MoveTable moveTable;
+    private final ObjectIntHashMap<TwoPhaseAction<AxialPosition, Rotation>> moveIndices = new ObjectIntHashMap<>();
+    // indexed by state * moveTable.size() + move
+    private final int[] transitions;
+
+    private SpinHexMovePruner(MoveTable moveTable, boolean treeSearch) {
+        this.moveTable = moveTable;
+        final int moves = moveTable.size();
+        for (int move = 0; move < moves; move++) {
+            moveIndices.put(moveTable.getMove(move), move);
+        }
+        // boards may have more than 64 cells, so the cycles are compared cell by cell
+        final var overlaps = new boolean[moves][moves];
+        for (int move = 0; move < moves; move++) {
+            for (int other = 0; other < moves; other++) {
+                overlaps[move][other] = sharesCell(moveTable, move, other);
+            }
+        }
+        transitions = new int[(1 + moves * MAX_RUN) * moves];
+        for (int move = 0; move < moves; move++) {
+            transitions[move] = stateOf(move, 1);
+        }
+        for (int last = 0; last < moves; last++) {
+            for (int run = 1; run <= MAX_RUN; run++) {
+                final int base = stateOf(last, run) * moves;
+                for (int move = 0; move < moves; move++) {
+                    final boolean samePivot = pivotOf(move) == pivotOf(last);
+                    final int next;
+                    if (samePivot && move != last) {
+                        next = PRUNED;
+                    } else if (samePivot) {
+                        final int maxRun = treeSearch && isCounterClockwise(move) ? MAX_RUN - 1 : MAX_RUN;
+                        next = run < maxRun ? stateOf(move, run + 1) : PRUNED;
+                    } else if (treeSearch && !overlaps[move][last] && pivotOf(move) < pivotOf(last)) {
+                        next = PRUNED;
+                    } else {
+                        next = stateOf(move, 1);
+                    }
+                    transitions[base + move] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the automaton pruning every redundant sequence, for depth-first
+     * searches without duplicate detection.
+     *
+     * @param moveTable the moves of the board
+     * @return the automaton
+     */
+    public static SpinHexMovePruner forTreeSearch(MoveTable moveTable) {
+        return new SpinHexMovePruner(moveTable, true);
+    }
+
+    /**
+     * Creates the automaton only pruning the sequences having strictly
+     * shorter equivalents, for searches detecting duplicate states.
+     *
+     * @param moveTable the moves of the board
+     * @return the automaton
+     */
+    public static SpinHexMovePruner forGraphSearch(MoveTable moveTable) {
+        return new SpinHexMovePruner(moveTable, false);
+    }
+
+    private static boolean sharesCell(MoveTable moveTable, int move, int other) {
+        for (int k = 0; k < MoveTable.CYCLE_LENGTH; k++) {
+            for (int l = 0; l < MoveTable.CYCLE_LENGTH; l++) {
+                if (moveTable.getCycleCell(move, k) == moveTable.getCycleCell(other, l)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int stateOf(int move, int run) {
+        return 1 + move * MAX_RUN + run - 1;
+    }
+
+    private static int pivotOf(int move) {
+        return move >> 1;
+    }
+
+    private static boolean isCounterClockwise(int move) {
+        return (move & 1) != 0;
+    }
+
+    /**
+     * Returns the moves the automaton was compiled from.
+     *
+     * @return the move table
+     */
+    public MoveTable getMoveTable() {
+        return moveTable;
+    }
+
+    /**
+     * Returns the number of states of the automaton.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return transitions.length / moveTable.size();
+    }
+
+    @Override
+    public int getInitialState() {
+        return 0;
+    }
+
+    /**
+     * Returns the state of the automaton after a move. Moves missing from the
+     * move table are never pruned, and reset the automaton.
+     */
+    @Override
+    public int next(int state, TwoPhaseAction<AxialPosition, Rotation> move) {
+        final int index = moveIndices.getIfAbsent(move, -1);
+        return index < 0 ? getInitialState() : next(state, index);
+    }
+
+    /**
+     * Returns the state of the automaton after a move.
+     *
+     * @param state the state of the automaton before the move
+     * @param move  the index of the move in the move table
+     * @return the state after the move, or {@link #PRUNED} if the move is
+     *         redundant after the moves leading to {@code state}
+     */
+    public int next(int state, int move) {
+        return transitions[state * moveTable.size() + move];
+    }
+
+    @Override
+    public int getHistoryLength() {
+        return MAX_RUN;
+    }
+}
@@ -0,0 +1,147 @@
+package spinhex.solver;
+
+import solver.HashVisitedSet;
+import solver.Node;
+import solver.SearchTree;
+import solver.VisitedSet;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardSymmetries;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Breadth-first search over packed boards that stores a single board of every
+ * orbit under the symmetries of the target (see {@link BoardSymmetries}).
+ * <p>
+ * Every child is replaced by its canonical representative before it enters
+ * the visited set and the {@link SearchTree}, so the number of stored boards
+ * drops by up to the order of the symmetry group, which is 12 for the
+ * original board. The boards of an orbit are equally far from the target, so
+ * the depth of the solution does not change.
+ * </p>
+ * <p>
+ * The moves in the tree are relative to the canonical boards, so when the
+ * solved board is found the real moves are recovered by replaying the path
+ * from the initial board: at each step, a move whose child has the same
+ * canonical representative as the next board of the path is taken. Since the
+ * moves of consecutive tree nodes refer to differently mapped boards, the
+ * move pruning of {@link PackedBreadthFirstSearch} is not applied.
+ * </p>
+ */
+public final class SymmetricBreadthFirstSearch {
+    private final Supplier<? extends VisitedSet> visitedSetFactory;
+    private long expandedCount;
+
+    /**
+     * Creates a search keeping the visited boards in a {@link HashVisitedSet}.
+     */
+    public SymmetricBreadthFirstSearch() {
+        this(HashVisitedSet::new);
+    }
+
+    /**
+     * Creates a search keeping the visited boards in the visited sets created
+     * by the factory, which are closed when a search ends.
+     *
+     * @param visitedSetFactory the factory creating the visited set of a search
+     */
+    public SymmetricBreadthFirstSearch(Supplier<? extends VisitedSet> visitedSetFactory) {
+        this.visitedSetFactory = visitedSetFactory;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalStateException if the board has too many cells to be
+     *                               packed into a single {@code long}, or too
+     *                               many states for the search tree
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solve(SpinHexModel model) {
+        expandedCount = 0;
+        final var kernel = new PackedSpinHex(model.getSolution());
+        final var symmetries = new BoardSymmetries(model.getSolution());
+        final long start = kernel.pack(model.getBoard());
+        if (kernel.isTarget(start)) {
+            return Optional.of(new Node<>(model.clone()));
+        }
+        final var tree = new SearchTree();
+        final int root = tree.addRoot(symmetries.canonicalize(start));
+        try (var visited = visitedSetFactory.get()) {
+            visited.add(tree.getState(root));
+            for (int parent = root; parent < tree.size(); parent++) {
+                final long board = tree.getState(parent);
+                expandedCount++;
+                for (int move = 0; move < kernel.size(); move++) {
+                    final long child = symmetries.canonicalize(kernel.apply(move, board));
+                    if (visited.add(child)) {
+                        final int node = tree.add(child, parent, move);
+                        // the target is its own canonical representative
+                        if (kernel.isTarget(child)) {
+                            return Optional.of(PackedSolutions.toNode(model, kernel.getMoveTable(),
+                                    realMoves(tree, node, start, kernel, symmetries)));
+                        }
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static int[] realMoves(SearchTree tree, int node, long start, PackedSpinHex kernel,
+            BoardSymmetries symmetries) {
+        final var moves = new int[tree.getDepth(node)];
+        for (int current = node, i = moves.length - 1; i >= 0; current = tree.getParent(current), i--) {
+            moves[i] = current;
+        }
+        long board = start;
+        for (int i = 0; i < moves.length; i++) {
+            final long next = tree.getState(moves[i]);
+            int move = 0;
+            while (symmetries.canonicalize(kernel.apply(move, board)) != next) {
+                move++;
+            }
+            board = kernel.apply(move, board);
+            moves[i] = move;
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the number of states expanded by the last search run by this
+     * instance, i.e., the number of states whose children were generated.
+     *
+     * @return the number of states expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Searches for the shortest solution of the puzzle starting from the state
+     * of the model provided, and it also prints the solution to the standard
+     * output.
+     *
+     * @param model the initial state
+     * @return an {@code Optional} describing the shortest solution for the puzzle,
+     *         or an empty {@code Optional} if no solution is found
+     * @throws IllegalStateException if the board has too many cells to be
+     *                               packed into a single {@code long}, or too
+     *                               many states for the search tree
+     */
+    public Optional<Node<TwoPhaseAction<AxialPosition, Rotation>>> solveAndPrintSolution(SpinHexModel model) {
+        var solution = solve(model);
+        solution.ifPresentOrElse(
+                PackedSolutions::printPathTo,
+                () -> System.out.println("No solution found"));
+        return solution;
+    }
+}
@@ -0,0 +1,206 @@
+package spinhex.solver;
+
+import spinhex.model.BoardRanker;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.MoveTable;
+
+import java.util.Arrays;
+
+/**
+ * Exhaustive breadth-first enumeration of the SpinHex state space using two
+ * bits per state.
+ * <p>
+ * Every board having the same colors as the root board is identified by its
+ * rank (see {@link BoardRanker}), and the search only stores the distance of
+ * each rank modulo 3, or the marker of unvisited states, in two bits. For the
+ * original board this is about 11.6 MB for the whole space, and no frontier
+ * queue or {@code Node} objects are needed, since every layer is processed by
+ * sweeping the whole array.
+ * </p>
+ * <p>
+ * A layer is either pushed, expanding the states having the residue of the
+ * current depth, or pulled, checking whether any neighbor of an unvisited
+ * state has the residue of the current depth, whichever has less states to
+ * look at. A state with the residue of the current depth can also be three
+ * layers older, but an unvisited state can never be adjacent to such a state,
+ * so pulled layers are exact, while pushed layers merely expand a few old
+ * states again. Moves must be invertible for pulling to be correct, which is
+ * the case for SpinHex.
+ * </p>
+ */
+public final class TwoBitBreadthFirstSearch {
+    private static final int UNVISITED = 3;
+    private static final int ENTRIES_PER_WORD = Long.SIZE / 2;
+
+    private final HexagonalGrid root;
+    private final BoardRanker ranker;
+    private final MoveTable moveTable;
+    private final long[] entries;
+
+    /**
+     * Creates a search enumerating the states reachable from the specified
+     * board.
+     *
+     * @param root The board the distances are measured from
+     * @throws IllegalArgumentException if the state space does not fit into a
+     *                                  single array
+     */
+    public TwoBitBreadthFirstSearch(HexagonalGrid root) {
+        this.root = root.clone();
+        this.ranker = new BoardRanker(root);
+        this.moveTable = new MoveTable(root);
+        final long words = (ranker.size() + ENTRIES_PER_WORD - 1) / ENTRIES_PER_WORD;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many states for a two-bit table: " + ranker.size());
+        }
+        this.entries = new long[(int) words];
+    }
+
+    /**
+     * Sweeps the whole state space from the root board.
+     *
+     * @return The number of states at each distance from the root
+     */
+    public Result sweep() {
+        Arrays.fill(entries, -1L);
+        final var board = root.clone();
+        set(ranker.rank(board), 0);
+        final long[] residueCounts = new long[3];
+        residueCounts[0] = 1;
+        long unvisited = ranker.size() - 1;
+        var depthCounts = new long[] { 1 };
+        for (int depth = 0; unvisited > 0; depth++) {
+            final long discovered = residueCounts[depth % 3] < unvisited
+                    ? push(depth, board)
+                    : pull(depth, board);
+            if (discovered == 0) {
+                break;
+            }
+            depthCounts = Arrays.copyOf(depthCounts, depth + 2);
+            depthCounts[depth + 1] = discovered;
+            residueCounts[(depth + 1) % 3] += discovered;
+            unvisited -= discovered;
+        }
+        return new Result(depthCounts, ranker.size());
+    }
+
+    private long push(int depth, HexagonalGrid board) {
+        final int residue = depth % 3;
+        final int nextResidue = (depth + 1) % 3;
+        long discovered = 0;
+        for (long rank = 0; rank < ranker.size(); rank++) {
+            if (get(rank) != residue) {
+                continue;
+            }
+            ranker.unrank(rank, board);
+            for (int move = 0; move < moveTable.size(); move++) {
+                moveTable.apply(move, board);
+                final long next = ranker.rank(board);
+                if (get(next) == UNVISITED) {
+                    set(next, nextResidue);
+                    discovered++;
+                }
+                moveTable.apply(MoveTable.inverse(move), board);
+            }
+        }
+        return discovered;
+    }
+
+    private long pull(int depth, HexagonalGrid board) {
+        final int residue = depth % 3;
+        final int nextResidue = (depth + 1) % 3;
+        long discovered = 0;
+        for (long rank = 0; rank < ranker.size(); rank++) {
+            if (get(rank) != UNVISITED) {
+                continue;
+            }
+            ranker.unrank(rank, board);
+            for (int move = 0; move < moveTable.size(); move++) {
+                moveTable.apply(move, board);
+                final boolean parent = get(ranker.rank(board)) == residue;
+                moveTable.apply(MoveTable.inverse(move), board);
+                if (parent) {
+                    set(rank, nextResidue);
+                    discovered++;
+                    break;
+                }
+            }
+        }
+        return discovered;
+    }
+
+    private int get(long rank) {
+        return (int) (entries[(int) (rank / ENTRIES_PER_WORD)] >>> ((rank % ENTRIES_PER_WORD) * 2)) & 3;
+    }
+
+    private void set(long rank, int value) {
+        final int word = (int) (rank / ENTRIES_PER_WORD);
+        final int shift = (int) (rank % ENTRIES_PER_WORD) * 2;
+        entries[word] = (entries[word] & ~(3L << shift)) | ((long) value << shift);
+    }
+
+    /**
+     * Checks whether a board was reached by the last sweep.
+     *
+     * @param board The board to check
+     * @return {@code true} if the board is reachable from the root,
+     *         {@code false} otherwise
+     */
+    public boolean isReachable(HexagonalGrid board) {
+        return ranker.canRank(board) && get(ranker.rank(board)) != UNVISITED;
+    }
+
+    /**
+     * Returns the distance of a board from the root modulo 3, as stored by the
+     * last sweep. Together with the distance of any neighbor it determines the
+     * exact distance of the board.
+     *
+     * @param board The board to look up
+     * @return The distance of the board modulo 3, or {@code -1} if the board is
+     *         unreachable
+     */
+    public int getDistanceResidue(HexagonalGrid board) {
+        if (!ranker.canRank(board)) {
+            return -1;
+        }
+        final int value = get(ranker.rank(board));
+        return value == UNVISITED ? -1 : value;
+    }
+
+    /**
+     * The outcome of a sweep.
+     *
+     * @param depthCounts the number of states at each distance from the root
+     * @param stateCount  the number of boards having the colors of the root
+     */
+    public record Result(long[] depthCounts, long stateCount) {
+        /**
+         * Returns the largest distance of a reachable state from the root, which
+         * is God's number when the root is the solved board.
+         *
+         * @return the radius of the state space around the root
+         */
+        public int radius() {
+            return depthCounts.length - 1;
+        }
+
+        /**
+         * Returns the number of states reachable from the root.
+         *
+         * @return the number of reachable states
+         */
+        public long reachable() {
+            return Arrays.stream(depthCounts).sum();
+        }
+
+        /**
+         * Returns the number of boards having the colors of the root which
+         * cannot be reached from it.
+         *
+         * @return the number of unreachable states
+         */
+        public long unreachable() {
+            return stateCount - reachable();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package contains the SpinHex specific components of the solvers,
+ * such as heuristics and precomputed lookup tables built from the
+ * {@code SpinHexModel}.
+ * The generic search algorithms are located in the {@code solver} package.
+ */
+package spinhex.solver;
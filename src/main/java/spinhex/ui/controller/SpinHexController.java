@@ -1,6 +1,7 @@
 package spinhex.ui.controller;
 
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.value.ObservableValue;
@@ -27,10 +28,12 @@ import spinhex.ui.component.RotationSelectorOverlay;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.Random;
 
 public class SpinHexController {
 
     private static final int HEX_SIZE = 80;
+    private static final int SCRAMBLE_MOVES = 30;
     private ReadOnlyStringWrapper username = new ReadOnlyStringWrapper("Anonymous");
 
     @FXML
@@ -50,8 +53,8 @@ public class SpinHexController {
 
     private ReadOnlyIntegerWrapper steps = new ReadOnlyIntegerWrapper(0);
 
-    private final ReadOnlySpinHexModelWrapper model = new ReadOnlySpinHexModelWrapper();
-    private final JFXTwoPhaseActionSelector<AxialPosition, Rotation> selector = new JFXTwoPhaseActionSelector<>(model);
+    private ReadOnlySpinHexModelWrapper model;
+    private JFXTwoPhaseActionSelector<AxialPosition, Rotation> selector;
 
     public void setUsername(String username) {
         this.username.set(username);
@@ -61,10 +64,35 @@ public class SpinHexController {
         Logger.info("Username set to: {}", this.username.get());
     }
 
+    /**
+     * Replaces the default board by a scrambled puzzle on a board of the
+     * specified shape, e.g., one loaded from a shape file.
+     *
+     * @param topology the shape of the board
+     */
+    public void setShape(BoardTopology topology) {
+        Logger.info("Board shape set to:\n{}", topology);
+        loadModel(ReadOnlySpinHexModelWrapper.scrambled(topology, SCRAMBLE_MOVES, new Random()));
+    }
+
     @FXML
     private void initialize() {
-        gamePane.populateFromGrid(model.getBoard());
         solutionPane.setHexSize((int) (HEX_SIZE / 1.5));
+        usernameLabel.textProperty().bind(username.concat("'s Board"));
+        loadModel(new ReadOnlySpinHexModelWrapper());
+        Platform.runLater(() -> {
+            Stage stage = (Stage) gamePane.getScene().getWindow();
+            stage.setTitle("SpinHex Game - " + username.get());
+        });
+    }
+
+    private void loadModel(ReadOnlySpinHexModelWrapper model) {
+        this.model = model;
+        moves.clear();
+        steps.set(0);
+        gamePane.getChildren().clear();
+        gamePane.populateFromGrid(model.getBoard());
+        solutionPane.getChildren().clear();
         solutionPane.populateFromGrid(model.getSolution());
 
         for (HexTile tile : gamePane.getHexTiles()) {
@@ -73,16 +101,13 @@ public class SpinHexController {
             tile.setOnMouseClicked(this::handleMouseClickOnHex);
         }
 
-        stepsLabel.textProperty().bind(steps.asString("(%d steps taken so far)"));
-        usernameLabel.textProperty().bind(username.concat("'s Board"));
+        stepsLabel.textProperty().bind(Bindings.format("(%d steps taken so far, %d tiles remaining)",
+                steps, model.getTilesRemainingProperty()));
+        selector = new JFXTwoPhaseActionSelector<>(model);
         selector.phaseProperty().addListener(this::updateMoveCounterAfterMove);
         selector.phaseProperty().addListener(this::showSelectionPhaseChange);
         selector.phaseProperty().addListener(this::makeMoveIfAllowed);
         selector.phaseProperty().addListener(this::winConditionCheck);
-        Platform.runLater(() -> {
-            Stage stage = (Stage) gamePane.getScene().getWindow();
-            stage.setTitle("SpinHex Game - " + username.get());
-        });
     }
 
     @FXML
@@ -108,10 +133,7 @@ public class SpinHexController {
     }
 
     private void undoMove(TwoPhaseActionState.TwoPhaseAction<AxialPosition, Rotation> movement) {
-        AxialPosition from = movement.from();
-        Rotation action = movement.action();
-        Rotation inverseAction = action == Rotation.CLOCKWISE ? Rotation.COUNTERCLOCKWISE : Rotation.CLOCKWISE;
-        model.makeMove(new TwoPhaseActionState.TwoPhaseAction<>(from, inverseAction));
+        model.undoMove(movement);
     }
 
     private void makeMoveIfAllowed(ObservableValue<? extends TwoPhaseActionSelector.Phase> value,
@@ -9,11 +9,14 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import org.tinylog.Logger;
+import spinhex.model.BoardTopology;
 import spinhex.score.Score;
 import spinhex.score.ScoreManager;
 
@@ -24,6 +27,9 @@ public class StartMenuController {
     @FXML
     private TextField usernameField;
 
+    @FXML
+    private TextField shapeField;
+
     @FXML
     private TableView scoreTable;
 
@@ -35,11 +41,28 @@ public class StartMenuController {
 
     @FXML
     private void startGame(ActionEvent event) throws IOException {
+        BoardTopology shape = null;
+        if (!shapeField.getText().isBlank()) {
+            try {
+                shape = BoardTopology.load(Path.of(shapeField.getText().strip()));
+            } catch (IOException e) {
+                Logger.error("Failed to load board shape: {}", e.getMessage());
+                var popup = new Alert(Alert.AlertType.ERROR);
+                popup.setTitle("Invalid board shape");
+                popup.setHeaderText("The shape file cannot be loaded.");
+                popup.setContentText(e.getMessage());
+                popup.showAndWait();
+                return;
+            }
+        }
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/game.fxml"));
         Parent root = loader.load();
 
         SpinHexController controller = loader.getController();
         controller.setUsername(usernameField.getText());
+        if (shape != null) {
+            controller.setShape(shape);
+        }
 
         Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
         stage.setScene(new Scene(root));
@@ -0,0 +1,92 @@
+package spinhex.solver;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import spinhex.model.PackedSpinHex;
+
+/**
+ * Batch expander applying a move to a whole vector of packed boards at once
+ * using the incubating Vector API.
+ * <p>
+ * The move masks are broadcast constants, so every move is the same sequence
+ * of lane-wise AND, OR and rotate operations as
+ * {@link PackedSpinHex#apply(int, long)}, only on
+ * {@code LongVector.SPECIES_PREFERRED.length()} boards at a time. The tail of
+ * a batch that does not fill a vector is expanded by the scalar kernel.
+ * </p>
+ * <p>
+ * This class requires the {@code jdk.incubator.vector} module, use
+ * {@link BatchExpander#create(PackedSpinHex)} to fall back to the scalar
+ * expander when it is missing.
+ * </p>
+ */
+public final class VectorBatchExpander implements BatchExpander {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private final PackedSpinHex kernel;
+    private final long[] keep;
+    // the used terms of every move, unused terms are left out entirely
+    private final long[][] masks;
+    private final int[][] rotations;
+
+    /**
+     * Creates an expander for the moves of the specified kernel.
+     *
+     * @param kernel The move kernel, which must use single-word boards
+     * @throws IllegalArgumentException if the kernel uses multi-word boards
+     */
+    public VectorBatchExpander(PackedSpinHex kernel) {
+        if (kernel.getWordCount() != 1) {
+            throw new IllegalArgumentException("Batch expansion needs single-word boards");
+        }
+        this.kernel = kernel;
+        final int moves = kernel.size();
+        keep = new long[moves];
+        masks = new long[moves][];
+        rotations = new int[moves][];
+        for (int move = 0; move < moves; move++) {
+            keep[move] = kernel.getKeepMask(move);
+            int terms = 0;
+            while (terms < PackedSpinHex.TERMS && kernel.getTermMask(move, terms) != 0) {
+                terms++;
+            }
+            masks[move] = new long[terms];
+            rotations[move] = new int[terms];
+            for (int term = 0; term < terms; term++) {
+                masks[move][term] = kernel.getTermMask(move, term);
+                rotations[move][term] = kernel.getTermRotation(move, term) & (Long.SIZE - 1);
+            }
+        }
+    }
+
+    @Override
+    public int getMoveCount() {
+        return kernel.size();
+    }
+
+    @Override
+    public void expand(long[] boards, int count, long[] children) {
+        final int moves = kernel.size();
+        final int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final var board = LongVector.fromArray(SPECIES, boards, i);
+            for (int move = 0; move < moves; move++) {
+                var child = board.and(keep[move]);
+                final long[] moveMasks = masks[move];
+                final int[] moveRotations = rotations[move];
+                for (int term = 0; term < moveMasks.length; term++) {
+                    child = child.or(board.and(moveMasks[term]).lanewise(VectorOperators.ROL, moveRotations[term]));
+                }
+                child.intoArray(children, move * count + i);
+            }
+        }
+        for (; i < count; i++) {
+            final long board = boards[i];
+            for (int move = 0; move < moves; move++) {
+                children[move * count + i] = kernel.apply(move, board);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.SpinHexModel;
+import spinhex.solver.BatchExpander;
+import spinhex.solver.ScalarBatchExpander;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BatchExpanderTest {
+    // not a multiple of any vector length, so the scalar tail is exercised too
+    private static final int COUNT = 1003;
+
+    private static long[] randomBoards(PackedSpinHex kernel) {
+        var random = new Random(7);
+        var boards = new long[COUNT];
+        long board = kernel.pack(new SpinHexModel().getBoard());
+        for (int i = 0; i < COUNT; i++) {
+            board = kernel.apply(random.nextInt(kernel.size()), board);
+            boards[i] = board;
+        }
+        return boards;
+    }
+
+    private static void assertExpands(PackedSpinHex kernel, BatchExpander expander) {
+        var boards = randomBoards(kernel);
+        var children = new long[COUNT * expander.getMoveCount()];
+        expander.expand(boards, COUNT, children);
+        for (int move = 0; move < kernel.size(); move++) {
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals(kernel.apply(move, boards[i]), children[move * COUNT + i]);
+            }
+        }
+    }
+
+    @Test
+    public void testScalarExpander() {
+        var kernel = new PackedSpinHex(new SpinHexModel().getSolution());
+        assertExpands(kernel, new ScalarBatchExpander(kernel));
+    }
+
+    @Test
+    public void testVectorExpander() {
+        var kernel = new PackedSpinHex(new SpinHexModel().getSolution());
+        var expander = BatchExpander.create(kernel);
+        assumeTrue(expander.getClass().getSimpleName().equals("VectorBatchExpander"),
+                "built without the vector profile or run without jdk.incubator.vector");
+        assertExpands(kernel, expander);
+    }
+
+    @Test
+    public void testMultiWordKernel() {
+        var kernel = new PackedSpinHex(new SpinHexModel().getSolution(), 8);
+        assertThrows(IllegalArgumentException.class, () -> BatchExpander.create(kernel));
+    }
+}
@@ -0,0 +1,187 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.BatchSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchSolverTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static byte[][] scrambledStart() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        var board = model.getBoard();
+        var start = new byte[board.getSize()][board.getSize()];
+        for (int q = 0; q < board.getSize(); q++) {
+            for (int s = 0; s < board.getSize(); s++) {
+                if (board.isInBounds(q, s)) {
+                    start[q][s] = board.get(q, s);
+                }
+            }
+        }
+        return start;
+    }
+
+    private static String puzzle(String id, byte[][] start, byte[][] target) {
+        return "{" + (id != null ? "\"id\": \"" + id + "\", " : "")
+                + "\"start\": " + Arrays.deepToString(start) + ", \"target\": " + Arrays.deepToString(target) + "}";
+    }
+
+    @Test
+    public void testSolveFile(@TempDir Path directory) throws IOException {
+        var input = directory.resolve("puzzles.jsonl");
+        var output = directory.resolve("results.jsonl");
+        Files.write(input, List.of(
+                puzzle("scrambled", scrambledStart(), DistanceDatabaseTest.sparseTarget),
+                "",
+                puzzle(null, DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget),
+                puzzle("unreachable", SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget),
+                puzzle("invalid", SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget)
+                        .replace("}", ", \"shape\": \"o x\"}")));
+
+        assertEquals(4, new BatchSolver(BatchSolver.Engine.PACKED_BFS, 2).solve(input, output));
+
+        var results = new HashMap<String, BatchSolver.Result>();
+        for (var line : Files.readAllLines(output)) {
+            var result = MAPPER.readValue(line, BatchSolver.Result.class);
+            assertEquals(BatchSolver.Engine.PACKED_BFS, result.engine());
+            results.put(result.id(), result);
+        }
+        assertEquals(4, results.size());
+
+        var scrambled = results.get("scrambled");
+        assertTrue(scrambled.solved());
+        assertEquals(3, scrambled.length());
+        assertEquals(3, scrambled.moves().size());
+        assertTrue(scrambled.expandedStates() > 0);
+        var model = new SpinHexModel(scrambledStart(), DistanceDatabaseTest.sparseTarget);
+        for (var move : scrambled.moves()) {
+            model.makeMove(new TwoPhaseAction<>(new AxialPosition(move.q(), move.s()), move.rotation()));
+        }
+        assertTrue(model.isSolved());
+
+        var solved = results.get("3");
+        assertTrue(solved.solved());
+        assertEquals(0, solved.length());
+        assertEquals(List.of(), solved.moves());
+
+        var unreachable = results.get("unreachable");
+        assertFalse(unreachable.solved());
+        assertNull(unreachable.length());
+        assertNull(unreachable.error());
+
+        var invalid = results.get("invalid");
+        assertFalse(invalid.solved());
+        assertNotNull(invalid.error());
+    }
+
+    @Test
+    public void testEnginesAgree() {
+        var puzzle = new BatchSolver.Puzzle("p", scrambledStart(), DistanceDatabaseTest.sparseTarget, null);
+        for (var engine : BatchSolver.Engine.values()) {
+            var result = new BatchSolver(engine, 1).solve(puzzle);
+            assertTrue(result.solved(), engine.name());
+            assertEquals(3, result.length(), engine.name());
+            assertTrue(result.expandedStates() > 0, engine.name());
+        }
+    }
+
+    @Test
+    public void testEveryPuzzleGivesResult(@TempDir Path directory) throws IOException {
+        var input = directory.resolve("puzzles.jsonl");
+        var output = directory.resolve("results.jsonl");
+        var wideValues = new byte[][] {
+                { 0, 1, 5 },
+                { 1, 2, 1 },
+                { 2, 1, 0 }
+        };
+        Files.write(input, List.of(
+                puzzle("missing row", new byte[][] { { 0, 1, 1 }, null, { 2, 1, 0 } },
+                        SpinHexModelTest.unreachableTarget),
+                puzzle("wide", wideValues, wideValues),
+                puzzle("colors", SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget)
+                        .replace("[0, 1, 1]", "[0, 2, 1]")));
+
+        assertEquals(3, new BatchSolver(BatchSolver.Engine.IDA_STAR, 2).solve(input, output));
+
+        var results = new HashMap<String, BatchSolver.Result>();
+        for (var line : Files.readAllLines(output)) {
+            var result = MAPPER.readValue(line, BatchSolver.Result.class);
+            results.put(result.id(), result);
+        }
+        assertEquals(3, results.size());
+        assertNotNull(results.get("missing row").error());
+        assertFalse(results.get("colors").solved());
+        assertNull(results.get("colors").error());
+        var wide = new BatchSolver(BatchSolver.Engine.PACKED_BFS, 1)
+                .solve(new BatchSolver.Puzzle("wide", wideValues, wideValues, null));
+        assertFalse(wide.solved());
+        assertNotNull(wide.error());
+    }
+
+    @Test
+    public void testUnreachableSkipsSearch() {
+        var puzzle = new BatchSolver.Puzzle("p", SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget,
+                null);
+        for (var engine : BatchSolver.Engine.values()) {
+            var result = new BatchSolver(engine, 1).solve(puzzle);
+            assertFalse(result.solved(), engine.name());
+            assertNull(result.error(), engine.name());
+            assertEquals(0, result.expandedStates(), engine.name());
+        }
+    }
+
+    @Test
+    public void testIdaStarStopsAtDepthLimit() {
+        // a single pivot only rotates the ring, so swapping two of its hexes
+        // keeps the colors of the ring, but cannot be reached
+        var start = new byte[][] {
+                { 0, 1, 1 },
+                { 2, 3, 2 },
+                { 1, 2, 0 }
+        };
+        var target = new byte[][] {
+                { 0, 2, 1 },
+                { 1, 3, 2 },
+                { 1, 2, 0 }
+        };
+        var puzzle = new BatchSolver.Puzzle("p", start, target, null);
+        for (int maxDepth : new int[] { 8, BatchSolver.DEFAULT_MAX_DEPTH }) {
+            var result = new BatchSolver(BatchSolver.Engine.IDA_STAR, 1, maxDepth).solve(puzzle);
+            assertFalse(result.solved());
+            assertNull(result.error());
+            assertTrue(result.expandedStates() > 0);
+        }
+        assertFalse(new BatchSolver(BatchSolver.Engine.PACKED_BFS, 1).solve(puzzle).solved());
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(BatchSolver.Engine.IDA_STAR, 1, 0));
+    }
+
+    @Test
+    public void testInvalidInput(@TempDir Path directory) throws IOException {
+        var input = directory.resolve("puzzles.jsonl");
+        Files.write(input, List.of(
+                puzzle("first", DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget),
+                "{\"id\": \"missing\"}"));
+        var solver = new BatchSolver(BatchSolver.Engine.PACKED_BFS, 1);
+        var output = directory.resolve("results.jsonl");
+        var e = assertThrows(IOException.class, () -> solver.solve(input, output));
+        assertTrue(e.getMessage().contains("line 2"));
+        assertEquals(1, Files.readAllLines(output).size());
+
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(BatchSolver.Engine.BFS, 0));
+    }
+}
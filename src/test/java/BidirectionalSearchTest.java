@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+import solver.BidirectionalSearch;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.HexColor;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BidirectionalSearchTest {
+    public static byte[][] closerBoardStart = new byte[][] {
+            { HexColor.NONE, HexColor.NONE, HexColor.RED, HexColor.RED, HexColor.RED },
+            { HexColor.NONE, HexColor.RED, HexColor.BLUE, HexColor.GREEN, HexColor.BLUE },
+            { HexColor.BLUE, HexColor.RED, HexColor.BLUE, HexColor.GREEN, HexColor.BLUE },
+            { HexColor.BLUE, HexColor.RED, HexColor.BLUE, HexColor.GREEN, HexColor.NONE },
+            { HexColor.GREEN, HexColor.GREEN, HexColor.GREEN, HexColor.NONE, HexColor.NONE }
+    };
+
+    private static Node<TwoPhaseAction<AxialPosition, Rotation>> solve(SpinHexModel model) {
+        return new BidirectionalSearch<>(SpinHexModel::inverseOf)
+                .solve(model, model.getSolvedModel())
+                .orElseThrow();
+    }
+
+    @Test
+    public void testSolveSmallBoard() {
+        var solution = solve(new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget));
+        assertTrue(solution.getState().isSolved());
+        assertEquals(2, solution.getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveAlreadySolved() {
+        var solution = solve(new SpinHexModel().getSolvedModel());
+        assertTrue(solution.getState().isSolved());
+        assertEquals(0, solution.getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveCloserBoard() {
+        var model = new SpinHexModel(closerBoardStart, solvedBoard());
+        var solution = solve(model);
+        assertTrue(solution.getState().isSolved());
+        assertEquals(7, solution.getPath().size() - 1);
+
+        var replay = new SpinHexModel(closerBoardStart, solvedBoard());
+        var moves = new java.util.ArrayDeque<TwoPhaseAction<AxialPosition, Rotation>>();
+        for (var node = solution; node.getMove().isPresent(); node = node.getParent().orElseThrow()) {
+            moves.push(node.getMove().get());
+        }
+        moves.forEach(replay::makeMove);
+        assertTrue(replay.isSolved());
+    }
+
+    @Test
+    public void testSolveUnreachable() {
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        var solution = new BidirectionalSearch<>(SpinHexModel::inverseOf).solve(model, model.getSolvedModel());
+        assertTrue(solution.isEmpty());
+    }
+
+    public static byte[][] solvedBoard() {
+        return new byte[][] {
+                { HexColor.NONE, HexColor.NONE, HexColor.GREEN, HexColor.RED, HexColor.GREEN },
+                { HexColor.NONE, HexColor.RED, HexColor.BLUE, HexColor.BLUE, HexColor.RED },
+                { HexColor.GREEN, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.GREEN },
+                { HexColor.RED, HexColor.BLUE, HexColor.BLUE, HexColor.RED, HexColor.NONE },
+                { HexColor.GREEN, HexColor.RED, HexColor.GREEN, HexColor.NONE, HexColor.NONE }
+        };
+    }
+}
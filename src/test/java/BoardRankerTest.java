@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import spinhex.model.BoardRanker;
+import spinhex.model.HexColor;
+import spinhex.model.SpinHexModel;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardRankerTest {
+    @Test
+    public void testOriginalBoardSize() {
+        var ranker = new BoardRanker(new SpinHexModel().getBoard());
+        assertEquals(46_558_512L, ranker.size());
+        assertEquals(6, ranker.getColorCount(HexColor.RED));
+        assertEquals(6, ranker.getColorCount(HexColor.GREEN));
+        assertEquals(7, ranker.getColorCount(HexColor.BLUE));
+    }
+
+    @Test
+    public void testRankUnrankRoundTrip() {
+        var model = new SpinHexModel();
+        var ranker = new BoardRanker(model.getBoard());
+        assertEquals(model.getBoard(), ranker.unrank(ranker.rank(model.getBoard())));
+        assertEquals(model.getSolution(), ranker.unrank(ranker.rank(model.getSolution())));
+        for (long rank = 0; rank < ranker.size(); rank += 9_973) {
+            assertEquals(rank, ranker.rank(ranker.unrank(rank)));
+        }
+        assertEquals(0, ranker.rank(ranker.unrank(0)));
+        assertEquals(ranker.size() - 1, ranker.rank(ranker.unrank(ranker.size() - 1)));
+    }
+
+    @Test
+    public void testRanksAreDense() {
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget);
+        var ranker = new BoardRanker(model.getBoard());
+        // 7 cells: 5 red, 1 green, 1 blue
+        assertEquals(42, ranker.size());
+        var seen = new BitSet();
+        for (long rank = 0; rank < ranker.size(); rank++) {
+            var board = ranker.unrank(rank);
+            assertEquals(rank, ranker.rank(board));
+            seen.set((int) ranker.rank(board));
+        }
+        assertEquals(42, seen.cardinality());
+    }
+
+    @Test
+    public void testInvalidInput() {
+        var ranker = new BoardRanker(new SpinHexModel().getBoard());
+        var smallBoard = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget);
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank(smallBoard.getBoard()));
+        assertThrows(IllegalArgumentException.class, () -> ranker.unrank(-1));
+        assertThrows(IllegalArgumentException.class, () -> ranker.unrank(ranker.size()));
+
+        var board = new SpinHexModel().getBoard();
+        board.setCell(0, HexColor.GREEN);
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank(board));
+    }
+}
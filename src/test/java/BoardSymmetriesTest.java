@@ -0,0 +1,106 @@
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.jupiter.api.Test;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardRanker;
+import spinhex.model.BoardSymmetries;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.PackedBreadthFirstSearch;
+import spinhex.solver.SymmetricBreadthFirstSearch;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardSymmetriesTest {
+    @Test
+    public void testGroupOrder() {
+        var solution = new SpinHexModel().getSolution();
+        assertEquals(12, new BoardSymmetries(solution).size());
+        assertEquals(12, new BoardSymmetries(new HexagonalGrid(5)).size());
+        assertEquals(1, new BoardSymmetries(new SpinHexModel(DistanceDatabaseTest.sparseTarget,
+                DistanceDatabaseTest.sparseTarget).getSolution()).size());
+
+        var symmetries = new BoardSymmetries(solution);
+        assertArrayEquals(new int[] { 0, 1, 2 }, Arrays.copyOf(symmetries.getCellPermutation(0), 3));
+        for (int symmetry = 0; symmetry < symmetries.size(); symmetry++) {
+            var permutation = symmetries.getCellPermutation(symmetry);
+            assertEquals(solution.getCellCount(), Arrays.stream(permutation).distinct().count());
+            assertEquals(solution, symmetries.apply(symmetry, solution));
+        }
+    }
+
+    @Test
+    public void testSymmetriesMapMovesToMoves() {
+        var model = new SpinHexModel();
+        var target = model.getSolution();
+        var symmetries = new BoardSymmetries(target);
+        var kernel = new PackedSpinHex(target);
+        long board = kernel.pack(model.getBoard());
+        for (int symmetry = 0; symmetry < symmetries.size(); symmetry++) {
+            long image = symmetries.apply(symmetry, board);
+            assertEquals(image, kernel.pack(symmetries.apply(symmetry, model.getBoard())));
+            for (int move = 0; move < kernel.size(); move++) {
+                long moved = symmetries.apply(symmetry, kernel.apply(move, board));
+                boolean found = false;
+                for (int mapped = 0; mapped < kernel.size(); mapped++) {
+                    found |= kernel.apply(mapped, image) == moved;
+                }
+                assertTrue(found);
+            }
+        }
+    }
+
+    @Test
+    public void testCanonicalizeIsConstantOnOrbits() {
+        var target = new SpinHexModel().getSolution();
+        var symmetries = new BoardSymmetries(target);
+        var ranker = new BoardRanker(target);
+        var orbits = new LongHashSet();
+        final int samples = 100_000;
+        for (int rank = 0; rank < samples; rank++) {
+            long board = ranker.unrank(rank * (ranker.size() / samples)).pack();
+            long canonical = symmetries.canonicalize(board);
+            assertTrue(Long.compareUnsigned(canonical, board) <= 0);
+            for (int symmetry = 0; symmetry < symmetries.size(); symmetry++) {
+                assertEquals(canonical, symmetries.canonicalize(symmetries.apply(symmetry, board)));
+            }
+            orbits.add(canonical);
+        }
+        assertTrue(orbits.size() < samples);
+    }
+
+    @Test
+    public void testSymmetricSearchMatchesPackedSearch() {
+        var model = new SpinHexModel().getSolvedModel();
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 2), Rotation.COUNTERCLOCKWISE));
+
+        var expected = new PackedBreadthFirstSearch().solve(model).orElseThrow();
+        var solution = new SymmetricBreadthFirstSearch().solve(model).orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.getPath().size());
+        var path = solution.getPath();
+        assertEquals(model, path.getFirst().getState());
+        for (int i = 1; i < path.size(); i++) {
+            var state = path.get(i - 1).getState().clone();
+            state.makeMove(path.get(i).getMove().orElseThrow());
+            assertEquals(path.get(i).getState(), state);
+        }
+    }
+
+    @Test
+    public void testSymmetricSearchSolvedAndUnreachable() {
+        var search = new SymmetricBreadthFirstSearch();
+        assertEquals(1, search.solve(new SpinHexModel().getSolvedModel()).orElseThrow().getPath().size());
+
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        assertTrue(search.solve(model).isEmpty());
+    }
+}
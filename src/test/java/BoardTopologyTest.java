@@ -0,0 +1,189 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import solver.BreadthFirstSearchModified;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.DistanceDatabase;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.PackedBreadthFirstSearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardTopologyTest {
+    @Test
+    public void testSharedPerSize() {
+        assertSame(BoardTopology.of(5), BoardTopology.of(5));
+        assertSame(BoardTopology.of(5), new HexagonalGrid(5).getTopology());
+        assertSame(new HexagonalGrid(7).getTopology(), new HexagonalGrid(7).getTopology());
+        assertNotSame(BoardTopology.of(5), BoardTopology.of(7));
+        assertThrows(IllegalArgumentException.class, () -> BoardTopology.of(-1));
+    }
+
+    @Test
+    public void testDenseRowMajorIndices() {
+        for (int size = 1; size <= 21; size += 2) {
+            var topology = BoardTopology.of(size);
+            int radius = topology.getRadius();
+            assertEquals(3 * radius * radius + 3 * radius + 1, topology.getCellCount());
+            int expected = 0;
+            for (int q = 0; q < size; q++) {
+                for (int s = 0; s < size; s++) {
+                    if (topology.isInBounds(q, s)) {
+                        assertEquals(expected, topology.indexOf(q, s));
+                        assertEquals(new AxialPosition(q, s), topology.getPosition(expected));
+                        assertEquals(q, topology.getRow(expected));
+                        assertEquals(s, topology.getColumn(expected));
+                        expected++;
+                    } else {
+                        assertEquals(BoardTopology.NO_CELL, topology.indexOf(q, s));
+                    }
+                }
+            }
+            assertEquals(topology.getCellCount(), expected);
+            assertFalse(topology.isInBounds(-1, radius));
+            assertFalse(topology.isInBounds(radius, size));
+        }
+    }
+
+    @Test
+    public void testLargeGridRoundTrip() {
+        var grid = new HexagonalGrid(9);
+        for (int i = 0; i < grid.getCellCount(); i++) {
+            var position = grid.getTopology().getPosition(i);
+            grid.set(position, (byte) (i % 100));
+        }
+        for (int i = 0; i < grid.getCellCount(); i++) {
+            assertEquals((byte) (i % 100), grid.getCell(i));
+        }
+    }
+
+    @Test
+    public void testNeighborsAndPivots() {
+        var topology = BoardTopology.of(5);
+        assertArrayEquals(new int[] { 4, 5, 8, 9, 10, 13, 14 }, topology.getPivots());
+        for (int index = 0; index < topology.getCellCount(); index++) {
+            boolean full = true;
+            for (int k = 0; k < 6; k++) {
+                int neighbor = topology.getNeighbor(index, k);
+                full &= neighbor != BoardTopology.NO_CELL;
+                if (neighbor != BoardTopology.NO_CELL) {
+                    // the opposite direction leads back
+                    assertEquals(index, topology.getNeighbor(neighbor, (k + 3) % 6));
+                }
+            }
+            assertEquals(full, topology.isPivot(index));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> topology.getNeighbor(0, 6));
+        assertEquals(37 - 18, BoardTopology.of(7).getPivots().length);
+    }
+
+    @Test
+    public void testModelSharesTopology() {
+        var model = new SpinHexModel();
+        var other = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        assertSame(model.getSolution().getTopology(), other.getSolution().getTopology());
+        assertEquals(14, model.getLegalMoves().size());
+    }
+
+    static final String NOTCHED_PARALLELOGRAM = """
+            # a parallelogram with a notch
+            o o o o o
+            o o o o o
+            o o o o o
+            o o o o .
+            """;
+
+    static final byte[][] notchedStart = {
+            { 1, 1, 3, 3, 3 },
+            { 1, 1, 3, 3, 3 },
+            { 3, 3, 3, 3, 3 },
+            { 3, 3, 3, 3 }
+    };
+
+    @Test
+    public void testParseAndFormat() {
+        var hexagon = BoardTopology.parse("""
+                . . o o o
+                . o o o o
+                o o o o o   # the middle row
+                o o o o .
+
+                o o o . .
+                """);
+        assertSame(BoardTopology.of(5), hexagon);
+        assertTrue(hexagon.isHexagon());
+        assertSame(hexagon, BoardTopology.parse(hexagon.toString()));
+
+        var shape = BoardTopology.parse(NOTCHED_PARALLELOGRAM);
+        assertFalse(shape.isHexagon());
+        assertEquals(5, shape.getSize());
+        assertEquals(19, shape.getCellCount());
+        assertFalse(shape.isInBounds(3, 4));
+        assertFalse(shape.isInBounds(4, 0));
+        assertArrayEquals(new int[] { 6, 7, 8, 11, 12, 13 }, shape.getPivots());
+        assertSame(shape, BoardTopology.parse(shape.toString()));
+        assertSame(shape, BoardTopology.of(new boolean[][] {
+                { true, true, true, true, true },
+                { true, true, true, true, true },
+                { true, true, true, true, true },
+                { true, true, true, true }
+        }));
+
+        var holed = BoardTopology.parse("""
+                . . o o o
+                . o o o o
+                o o . o o
+                o o o o .
+                o o o . .
+                """);
+        assertEquals(18, holed.getCellCount());
+        assertEquals(0, holed.getPivots().length);
+        assertNotSame(BoardTopology.of(5), holed);
+    }
+
+    @Test
+    public void testInvalidShapes(@TempDir Path directory) throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> BoardTopology.parse("o x o"));
+        assertThrows(IllegalArgumentException.class, () -> BoardTopology.parse(". .\n# no cells"));
+        var file = directory.resolve("invalid.shape");
+        Files.writeString(file, "o o\no ?");
+        assertThrows(IOException.class, () -> BoardTopology.load(file));
+    }
+
+    @Test
+    public void testShapedModelAndSolvers(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("notched.shape");
+        Files.writeString(file, NOTCHED_PARALLELOGRAM);
+        var shape = BoardTopology.load(file);
+        var model = new SpinHexModel(shape, notchedStart, notchedStart);
+        assertTrue(model.isSolved());
+        assertEquals(12, model.getLegalMoves().size());
+        assertNotEquals(new HexagonalGrid(5), new HexagonalGrid(shape));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 1), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 3), Rotation.COUNTERCLOCKWISE));
+        assertEquals(shape.indexOf(1, 2), shape.getNeighbor(shape.indexOf(2, 2), 0));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow();
+        var packed = new PackedBreadthFirstSearch().solve(model).orElseThrow();
+        assertTrue(packed.getState().isSolved());
+        assertEquals(expected.getPath().size(), packed.getPath().size());
+
+        var database = DistanceDatabase.build(model);
+        assertEquals(expected.getPath().size() - 1, database.distance(model.getBoard()));
+        var databaseFile = directory.resolve("notched.dist");
+        database.write(databaseFile);
+        var loaded = DistanceDatabase.load(databaseFile);
+        assertTrue(loaded.matches(model));
+        assertEquals(expected.getPath().size() - 1, loaded.distance(model.getBoard()));
+    }
+}
@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+import solver.BreadthFirstSearchModified;
+import solver.OffHeapVisitedSet;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BreadthFirstSearchModifiedTest {
+    private static SpinHexModel scrambledModel() {
+        return new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget);
+    }
+
+    @Test
+    public void testSolve() {
+        var solution = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(scrambledModel());
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(2, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolvePacked() {
+        var solution = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(scrambledModel(), SpinHexModel.packedEncoder());
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(2, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveRanked() {
+        var model = scrambledModel();
+        var solution = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer());
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(2, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveOffHeap() {
+        var solution = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(scrambledModel(), SpinHexModel.packedEncoder(), OffHeapVisitedSet::new);
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(2, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveClosesVisitedSet() {
+        var created = new ArrayList<OffHeapVisitedSet>();
+        new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(scrambledModel(), SpinHexModel.packedEncoder(), () -> {
+                    var visited = new OffHeapVisitedSet();
+                    created.add(visited);
+                    return visited;
+                });
+        assertEquals(1, created.size());
+        assertThrows(IllegalStateException.class, () -> created.getFirst().contains(1));
+    }
+
+    @Test
+    public void testSolvePackedUnsolvable() {
+        var unsolvable = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        var solution = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(unsolvable, SpinHexModel.packedEncoder());
+        assertTrue(solution.isEmpty());
+    }
+}
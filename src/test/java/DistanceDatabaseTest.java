@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+import solver.BidirectionalSearch;
+import spinhex.model.AxialPosition;
+import spinhex.model.DistanceDatabase;
+import spinhex.model.HexColor;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceDatabaseTest {
+    // 13 blue, 3 red, 3 green: 542,640 boards, small enough to build in a test
+    public static byte[][] sparseTarget = new byte[][] {
+            { HexColor.NONE, HexColor.NONE, HexColor.RED, HexColor.BLUE, HexColor.GREEN },
+            { HexColor.NONE, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE },
+            { HexColor.RED, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.GREEN },
+            { HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.NONE },
+            { HexColor.GREEN, HexColor.BLUE, HexColor.RED, HexColor.NONE, HexColor.NONE }
+    };
+
+    private static SpinHexModel scrambledModel() {
+        var model = new SpinHexModel(sparseTarget, sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+        return model;
+    }
+
+    @Test
+    public void testDistanceMatchesSearch() throws IOException {
+        var model = scrambledModel();
+        var database = DistanceDatabase.build(model);
+        assertEquals(542_640, database.size());
+        model.setDistanceDatabase(database);
+
+        var expected = new BidirectionalSearch<>(SpinHexModel::inverseOf)
+                .solve(model, model.getSolvedModel())
+                .orElseThrow().getPath().size() - 1;
+        assertEquals(expected, model.distanceToSolution());
+        assertEquals(0, model.getSolvedModel().distanceToSolution());
+        assertTrue(model.getSolvedModel().bestMoves().isEmpty());
+
+        var solution = database.solve(model.getBoard());
+        assertEquals(expected, solution.size());
+        var copy = (SpinHexModel) model.clone();
+        for (var move : solution) {
+            assertTrue(copy.bestMoves().contains(move));
+            copy.makeMove(move);
+        }
+        assertTrue(copy.isSolved());
+
+        var file = Files.createTempFile("spinhex", ".dist");
+        try {
+            database.write(file);
+            var loaded = DistanceDatabase.load(file);
+            assertTrue(loaded.matches(model));
+            assertEquals(expected, loaded.distance(model.getBoard()));
+            assertEquals(model.bestMoves(), loaded.bestMoves(model.getBoard()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testMismatchedModel() {
+        var database = DistanceDatabase.build(scrambledModel());
+        var model = new SpinHexModel();
+        assertThrows(IllegalArgumentException.class, () -> model.setDistanceDatabase(database));
+        assertThrows(IllegalStateException.class, model::distanceToSolution);
+        assertEquals(-1, database.distance(model.getBoard()));
+    }
+}
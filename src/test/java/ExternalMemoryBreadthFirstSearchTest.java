@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import solver.BreadthFirstSearchModified;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.ExternalMemoryBreadthFirstSearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExternalMemoryBreadthFirstSearchTest {
+    @TempDir
+    Path workDirectory;
+
+    @Test
+    public void testMatchesSequentialSearch() throws IOException {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow();
+        // a tiny buffer, so every layer is sorted in many runs
+        var solution = new ExternalMemoryBreadthFirstSearch(workDirectory, 1000).solve(model).orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.getPath().size());
+        try (var files = Files.list(workDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testBoardWiderThanLong() throws IOException {
+        // the 37 cells of a 7x7 board take 74 bits, i.e., two words a board
+        var target = new byte[7][7];
+        for (int q = 0; q < 7; q++) {
+            for (int s = 0; s < 7; s++) {
+                target[q][s] = (byte) ((q + s) % 3 + 1);
+            }
+        }
+        var model = new SpinHexModel(BoardTopology.of(7), target, target);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 4), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(4, 2), Rotation.COUNTERCLOCKWISE));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model)
+                .orElseThrow();
+        var solution = new ExternalMemoryBreadthFirstSearch(workDirectory, 1000).solve(model).orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.getPath().size());
+        try (var files = Files.list(workDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testSolvedAndUnreachable() throws IOException {
+        var search = new ExternalMemoryBreadthFirstSearch(workDirectory, 16);
+        assertEquals(0, search.solve(new SpinHexModel().getSolvedModel()).orElseThrow().getPath().size() - 1);
+
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        assertTrue(search.solve(model).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new ExternalMemoryBreadthFirstSearch(workDirectory, 0));
+    }
+}
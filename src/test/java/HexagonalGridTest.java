@@ -1,7 +1,18 @@
 import org.junit.jupiter.api.Test;
 import spinhex.model.AxialPosition;
+import spinhex.model.BoardRanker;
 import spinhex.model.HexColor;
 import spinhex.model.HexagonalGrid;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,4 +138,109 @@ public class HexagonalGridTest {
         assertEquals(grid1.hashCode(), grid2.hashCode());
         assertNotEquals(grid1.hashCode(), grid3.hashCode());
     }
+
+    private static int polynomialHash(HexagonalGrid grid) {
+        int hash = 1;
+        for (int i = 0; i < grid.getCellCount(); i++) {
+            hash = hash * 3 + grid.getCell(i);
+        }
+        return hash;
+    }
+
+    private static long countDistinct(long[] values) {
+        Arrays.sort(values);
+        return IntStream.range(0, values.length)
+                .filter(i -> i == 0 || values[i] != values[i - 1])
+                .count();
+    }
+
+    @Test
+    public void testIncrementalHashes() {
+        var random = new Random(42);
+        var grid = new HexagonalGrid(7);
+        for (int step = 0; step < 10_000; step++) {
+            grid.setCell(random.nextInt(grid.getCellCount()), (byte) (random.nextInt(256) - 128));
+            var fresh = new HexagonalGrid(7);
+            for (int i = 0; i < grid.getCellCount(); i++) {
+                fresh.setCell(i, grid.getCell(i));
+            }
+            assertEquals(polynomialHash(grid), grid.hashCode());
+            assertEquals(fresh.hashCode(), grid.hashCode());
+            assertEquals(fresh.getZobristHash(), grid.getZobristHash());
+            assertEquals(fresh, grid);
+        }
+        assertEquals(0, new HexagonalGrid(5).getZobristHash());
+        assertEquals(grid.getZobristHash(), grid.clone().getZobristHash());
+    }
+
+    @Test
+    public void testHashesAfterMovesMatchRecompute() {
+        var random = new Random(42);
+        var model = new SpinHexModel();
+        var moves = new ArrayList<>(model.getLegalMoves());
+        var history = new ArrayDeque<TwoPhaseAction<AxialPosition, Rotation>>();
+        for (int step = 0; step < 10_000; step++) {
+            if (!history.isEmpty() && random.nextInt(3) == 0) {
+                model.undoMove(history.pop());
+            } else {
+                var move = moves.get(random.nextInt(moves.size()));
+                model.makeMove(move);
+                history.push(move);
+            }
+            var board = model.getBoard();
+            var fresh = new HexagonalGrid(board.getTopology());
+            for (int i = 0; i < board.getCellCount(); i++) {
+                fresh.setCell(i, board.getCell(i));
+            }
+            assertEquals(polynomialHash(board), board.hashCode());
+            assertEquals(fresh.getZobristHash(), board.getZobristHash());
+        }
+    }
+
+    @Test
+    public void testHashCollisionsOnSampledStateSpace() {
+        // a uniform sample of the 46,558,512 boards of the original puzzle, the
+        // whole space takes too long and too much memory for a unit test
+        var target = new SpinHexModel().getSolution();
+        var ranker = new BoardRanker(target);
+        var random = new SplittableRandom(42);
+        var ranks = random.longs(2_000_000, 0, ranker.size()).sorted().distinct().toArray();
+        int size = ranks.length;
+        var hashCodes = new long[size];
+        var foldedZobristHashes = new long[size];
+        var zobristHashes = new long[size];
+        var grid = new HexagonalGrid(target.getTopology());
+        for (int i = 0; i < size; i++) {
+            ranker.unrank(ranks[i], grid);
+            assertEquals(polynomialHash(grid), grid.hashCode());
+            hashCodes[i] = grid.hashCode();
+            foldedZobristHashes[i] = Long.hashCode(grid.getZobristHash());
+            zobristHashes[i] = grid.getZobristHash();
+        }
+        long hashCodeCollisions = size - countDistinct(hashCodes);
+        long foldedZobristCollisions = size - countDistinct(foldedZobristHashes);
+        assertEquals(0, size - countDistinct(zobristHashes));
+        // the p=3 polynomial hash beats even a random 32-bit hash on these boards
+        assertTrue(hashCodeCollisions <= foldedZobristCollisions,
+                hashCodeCollisions + " > " + foldedZobristCollisions);
+    }
+
+    @Test
+    public void testPack() {
+        HexagonalGrid grid1 = new HexagonalGrid(5);
+        grid1.set(1, 2, HexColor.RED);
+        grid1.set(2, 3, HexColor.BLUE);
+
+        HexagonalGrid grid2 = grid1.clone();
+        HexagonalGrid grid3 = grid1.clone();
+        grid3.set(1, 3, HexColor.GREEN);
+
+        assertEquals(grid1.pack(), grid2.pack());
+        assertNotEquals(grid1.pack(), grid3.pack());
+        assertEquals(0, new HexagonalGrid(5).pack());
+
+        grid3.set(1, 3, (byte) 4);
+        assertThrows(IllegalStateException.class, grid3::pack);
+        assertThrows(IllegalStateException.class, () -> new HexagonalGrid(7).pack());
+    }
 }
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import puzzle.State;
+import solver.Heuristic;
+import solver.IterativeDeepeningAStar;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.MisplacedHexesHeuristic;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IterativeDeepeningAStarTest {
+
+    private static SpinHexModel scrambledModel() {
+        var model = new SpinHexModel().getSolvedModel();
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        return model;
+    }
+
+    @Test
+    public void testSolveSmallBoard() {
+        var solution = new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic())
+                .solve(new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget));
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(2, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolveMatchesBidirectionalSearch() {
+        var model = scrambledModel();
+        var expected = new solver.BidirectionalSearch<>(SpinHexModel::inverseOf)
+                .solve(model, model.getSolvedModel())
+                .orElseThrow();
+        var solution = new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic()).solve(scrambledModel());
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.get().getPath().size());
+    }
+
+    @Test
+    public void testSolveInPlaceMatchesCloningSearch() {
+        var model = scrambledModel();
+        var before = model.clone();
+        var inPlace = new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic()).solve(model).orElseThrow();
+        assertEquals(before, model);
+        assertSame(model, inPlace.getPath().getFirst().getState());
+        // hiding the ReversibleState interface forces the clone-based search
+        State<TwoPhaseAction<AxialPosition, Rotation>> cloning = new CloningState(scrambledModel());
+        var heuristic = new MisplacedHexesHeuristic();
+        var cloned = new IterativeDeepeningAStar<TwoPhaseAction<AxialPosition, Rotation>>(
+                state -> heuristic.estimate(((CloningState) state).model()))
+                .solve(cloning)
+                .orElseThrow();
+        assertEquals(cloned.getPath().size(), inPlace.getPath().size());
+        var path = inPlace.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            var state = path.get(i - 1).getState().clone();
+            state.makeMove(path.get(i).getMove().orElseThrow());
+            assertEquals(path.get(i).getState(), state);
+        }
+        assertTrue(path.getLast().getState().isSolved());
+    }
+
+    private record CloningState(SpinHexModel model) implements State<TwoPhaseAction<AxialPosition, Rotation>> {
+        @Override
+        public boolean isSolved() {
+            return model.isSolved();
+        }
+
+        @Override
+        public Set<TwoPhaseAction<AxialPosition, Rotation>> getLegalMoves() {
+            return model.getLegalMoves();
+        }
+
+        @Override
+        public boolean isLegalMove(TwoPhaseAction<AxialPosition, Rotation> move) {
+            return model.isLegalMove(move);
+        }
+
+        @Override
+        public void makeMove(TwoPhaseAction<AxialPosition, Rotation> move) {
+            model.makeMove(move);
+        }
+
+        @Override
+        public State<TwoPhaseAction<AxialPosition, Rotation>> clone() {
+            return new CloningState((SpinHexModel) model.clone());
+        }
+    }
+
+    @Test
+    public void testDepthLimit() {
+        var solution = new IterativeDeepeningAStar<TwoPhaseAction<AxialPosition, Rotation>>(Heuristic.zero(), 2)
+                .solve(scrambledModel());
+        assertTrue(solution.isEmpty());
+    }
+
+    @Test
+    public void testMisplacedHexesHeuristic() {
+        var heuristic = new MisplacedHexesHeuristic();
+        var model = new SpinHexModel().getSolvedModel();
+        assertEquals(0, model.getMisplacedHexCount());
+        assertEquals(0, heuristic.estimate(model));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        assertTrue(model.getMisplacedHexCount() > 0);
+        assertTrue(model.getMisplacedHexCount() <= MisplacedHexesHeuristic.HEXES_PER_MOVE);
+        assertEquals(1, heuristic.estimate(model));
+    }
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import solver.BreadthFirstSearchModified;
+import solver.Node;
+import solver.OffHeapVisitedSet;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.PackedBreadthFirstSearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedBreadthFirstSearchTest {
+    @Test
+    public void testMatchesSequentialSearch() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow();
+        for (var search : new PackedBreadthFirstSearch[] {
+                new PackedBreadthFirstSearch(), new PackedBreadthFirstSearch(OffHeapVisitedSet::new) }) {
+            var solution = search.solve(model).orElseThrow();
+            assertTrue(solution.getState().isSolved());
+            assertEquals(expected.getPath().size(), solution.getPath().size());
+            var path = solution.getPath();
+            for (int i = 1; i < path.size(); i++) {
+                var state = path.get(i - 1).getState().clone();
+                state.makeMove(path.get(i).getMove().orElseThrow());
+                assertEquals(path.get(i).getState(), state);
+            }
+        }
+    }
+
+    @Test
+    public void testSolvedAndUnreachable() {
+        var search = new PackedBreadthFirstSearch();
+        assertEquals(1, search.solve(new SpinHexModel().getSolvedModel()).orElseThrow().getPath().size());
+
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        assertTrue(search.solve(model).isEmpty());
+    }
+
+    @Test
+    public void testGetPath() {
+        var root = new Node<>(new SpinHexModel());
+        var node = root;
+        for (int i = 0; i < 100_000; i++) {
+            node = new Node<>(root.getState(), node, null);
+        }
+        var path = node.getPath();
+        assertEquals(100_001, path.size());
+        assertSame(root, path.getFirst());
+        assertSame(node, path.getLast());
+    }
+}
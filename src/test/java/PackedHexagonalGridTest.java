@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.HexColor;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.PackedHexagonalGrid;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.SpinHexModel;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedHexagonalGridTest {
+    private static final int COLORS = 1 << HexagonalGrid.PACKED_BITS_PER_CELL;
+
+    @Test
+    public void testBitsAndWords() {
+        var topology = BoardTopology.of(21);
+        assertEquals(331, topology.getCellCount());
+        var grid = new PackedHexagonalGrid(topology, 15);
+        assertEquals(4, grid.getBitsPerCell());
+        assertEquals(21, grid.getWordCount());
+        assertEquals(1, new PackedHexagonalGrid(topology, 1).getBitsPerCell());
+        assertEquals(2, new PackedHexagonalGrid(BoardTopology.of(5), 4).getBitsPerCell());
+        assertEquals(1, new PackedHexagonalGrid(BoardTopology.of(5), 4).getWordCount());
+        // 9 colors need 4 bits, so the original board needs two words
+        assertEquals(2, new PackedHexagonalGrid(BoardTopology.of(5), 9).getWordCount());
+        assertEquals(8, new PackedHexagonalGrid(topology, 256).getBitsPerCell());
+        assertThrows(IllegalArgumentException.class, () -> new PackedHexagonalGrid(topology, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PackedHexagonalGrid(topology, 257));
+    }
+
+    @Test
+    public void testGetAndSet() {
+        var topology = BoardTopology.of(21);
+        var grid = new PackedHexagonalGrid(topology, 15);
+        var expected = new HexagonalGrid(topology);
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < 10_000; i++) {
+            int index = random.nextInt(topology.getCellCount());
+            byte value = (byte) random.nextInt(15);
+            var position = topology.getPosition(index);
+            grid.set(position, value);
+            expected.set(position, value);
+        }
+        for (int q = 0; q < topology.getSize(); q++) {
+            for (int s = 0; s < topology.getSize(); s++) {
+                assertEquals(expected.isInBounds(q, s), grid.isInBounds(q, s));
+                if (grid.isInBounds(q, s)) {
+                    assertEquals(expected.get(q, s), grid.get(q, s));
+                }
+            }
+        }
+        assertEquals(expected, grid.toHexagonalGrid());
+        assertEquals(grid, new PackedHexagonalGrid(expected, 15));
+
+        assertThrows(IllegalArgumentException.class, () -> grid.set(0, 0, (byte) 1));
+        assertThrows(IllegalArgumentException.class, () -> grid.get(new AxialPosition(21, 10)));
+        assertThrows(IllegalArgumentException.class, () -> grid.set(10, 10, (byte) 16));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.getCell(331));
+    }
+
+    @Test
+    public void testEqualsHashCodeAndCopy() {
+        var original = new PackedHexagonalGrid(new SpinHexModel().getBoard(), COLORS);
+        var copy = original.clone();
+        assertEquals(original, copy);
+        assertEquals(original.hashCode(), copy.hashCode());
+
+        copy.setCell(0, (byte) 0);
+        assertNotEquals(original, copy);
+        assertNotEquals(original.getCell(0), copy.getCell(0));
+
+        copy.copyFrom(original);
+        assertEquals(original, copy);
+        assertThrows(IllegalArgumentException.class,
+                () -> copy.copyFrom(new PackedHexagonalGrid(BoardTopology.of(5), 9)));
+
+        var words = original.getWords();
+        words[0] = 0;
+        assertNotEquals(0, original.getWords()[0]);
+        assertNotEquals(original, new PackedHexagonalGrid(BoardTopology.of(5), 4));
+
+        // a board lacking the largest color packs at the width of the puzzle
+        var board = new SpinHexModel().getBoard();
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.getCell(i) == HexColor.BLUE) {
+                board.setCell(i, HexColor.RED);
+            }
+        }
+        var withoutBlue = new PackedHexagonalGrid(board, COLORS);
+        assertEquals(original.getBitsPerCell(), withoutBlue.getBitsPerCell());
+        copy.copyFrom(withoutBlue);
+        assertEquals(withoutBlue, copy);
+        assertEquals(withoutBlue, new PackedHexagonalGrid(board, COLORS));
+        assertThrows(IllegalArgumentException.class, () -> new PackedHexagonalGrid(board, 2));
+    }
+
+    @Test
+    public void testKernelRunsOnWords() {
+        var model = new SpinHexModel();
+        var grid = new PackedHexagonalGrid(model.getBoard(), COLORS);
+        var kernel = new PackedSpinHex(model.getSolution(), grid.getBitsPerCell());
+        assertArrayEquals(kernel.packWords(model.getBoard()), grid.getWords());
+
+        var wide = new PackedHexagonalGrid(model.getBoard().getTopology(), 9);
+        for (int i = 0; i < wide.getCellCount(); i++) {
+            wide.setCell(i, model.getBoard().getCell(i));
+        }
+        var wideKernel = new PackedSpinHex(model.getSolution(), wide.getBitsPerCell());
+        var child = new long[wide.getWordCount()];
+        wideKernel.apply(0, wide.getWords(), child);
+        wide.setWords(child);
+        var expected = (SpinHexModel) model.clone();
+        expected.makeMove(wideKernel.getMoveTable().getMove(0));
+        assertEquals(expected.getBoard(), wide.toHexagonalGrid());
+    }
+}
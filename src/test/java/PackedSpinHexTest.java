@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.SpinHexModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedSpinHexTest {
+    @Test
+    public void testSingleWordMatchesMoveTable() {
+        var model = new SpinHexModel();
+        var kernel = new PackedSpinHex(model.getSolution());
+        assertEquals(1, kernel.getWordCount());
+        assertEquals(14, kernel.size());
+
+        var board = model.getBoard();
+        long packed = kernel.pack(board);
+        assertEquals(board.pack(), packed);
+        for (int step = 0; step < 100; step++) {
+            for (int move = 0; move < kernel.size(); move++) {
+                var expected = board.clone();
+                kernel.getMoveTable().apply(move, expected);
+                assertEquals(expected.pack(), kernel.apply(move, packed));
+            }
+            int move = (step * 5) % kernel.size();
+            kernel.getMoveTable().apply(move, board);
+            packed = kernel.apply(move, packed);
+        }
+        var unpacked = new HexagonalGrid(board.getSize());
+        kernel.unpack(packed, unpacked);
+        assertEquals(board, unpacked);
+    }
+
+    @Test
+    public void testMultiWordMatchesMoveTable() {
+        var model = new SpinHexModel();
+        // 8 cells per word, so the 19 cells span 3 words and moves cross words
+        var kernel = new PackedSpinHex(model.getSolution(), 8);
+        assertEquals(3, kernel.getWordCount());
+        assertThrows(IllegalStateException.class, () -> kernel.pack(model.getBoard()));
+
+        var board = model.getBoard();
+        var packed = kernel.packWords(board);
+        var child = new long[kernel.getWordCount()];
+        for (int step = 0; step < 100; step++) {
+            int move = (step * 3) % kernel.size();
+            kernel.getMoveTable().apply(move, board);
+            kernel.apply(move, packed, child);
+            assertArrayEquals(kernel.packWords(board), child);
+            var swap = packed;
+            packed = child;
+            child = swap;
+        }
+        var unpacked = new HexagonalGrid(board.getSize());
+        kernel.unpack(packed, unpacked);
+        assertEquals(board, unpacked);
+    }
+
+    @Test
+    public void testIsTarget() {
+        var model = new SpinHexModel();
+        var kernel = new PackedSpinHex(model.getSolution());
+        var wide = new PackedSpinHex(model.getSolution(), 5);
+        assertTrue(kernel.isTarget(kernel.pack(model.getSolution())));
+        assertFalse(kernel.isTarget(kernel.pack(model.getBoard())));
+        assertTrue(wide.isTarget(wide.packWords(model.getSolution())));
+        assertFalse(wide.isTarget(wide.packWords(model.getBoard())));
+
+        long packed = kernel.pack(model.getSolution());
+        assertFalse(kernel.isTarget(kernel.apply(0, packed)));
+        assertTrue(kernel.isTarget(kernel.apply(1, kernel.apply(0, packed))));
+    }
+
+    @Test
+    public void testInvalidCellWidth() {
+        var target = new SpinHexModel().getSolution();
+        assertThrows(IllegalArgumentException.class, () -> new PackedSpinHex(target, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PackedSpinHex(target, 1));
+    }
+}
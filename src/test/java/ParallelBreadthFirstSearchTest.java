@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+import solver.BreadthFirstSearchModified;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.ParallelBreadthFirstSearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelBreadthFirstSearchTest {
+    private static List<TwoPhaseAction<AxialPosition, Rotation>> moves(Node<TwoPhaseAction<AxialPosition, Rotation>> node) {
+        var moves = new ArrayList<TwoPhaseAction<AxialPosition, Rotation>>();
+        for (var current = node; current.getMove().isPresent(); current = current.getParent().orElseThrow()) {
+            moves.add(current.getMove().get());
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    private static void assertSolves(SpinHexModel model, List<TwoPhaseAction<AxialPosition, Rotation>> moves) {
+        var replay = (SpinHexModel) model.clone();
+        moves.forEach(replay::makeMove);
+        assertTrue(replay.isSolved());
+    }
+
+    @Test
+    public void testMatchesSequentialSearch() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow();
+        var solution = new ParallelBreadthFirstSearch().solve(model).orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(moves(expected).size(), moves(solution).size());
+        assertSolves(model, moves(solution));
+    }
+
+    @Test
+    public void testDeterministicAcrossPools() {
+        var model = new SpinHexModel(BidirectionalSearchTest.closerBoardStart, BidirectionalSearchTest.solvedBoard());
+        var parallelPool = new ForkJoinPool(4);
+        var singlePool = new ForkJoinPool(1);
+        try {
+            var parallel = moves(new ParallelBreadthFirstSearch(parallelPool).solve(model).orElseThrow());
+            var single = moves(new ParallelBreadthFirstSearch(singlePool).solve(model).orElseThrow());
+            assertEquals(7, parallel.size());
+            assertEquals(single, parallel);
+            assertSolves(model, parallel);
+        } finally {
+            parallelPool.shutdown();
+            singlePool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSolvedAndUnreachable() {
+        var solved = new SpinHexModel().getSolvedModel();
+        assertTrue(moves(new ParallelBreadthFirstSearch().solve(solved).orElseThrow()).isEmpty());
+
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        assertTrue(new ParallelBreadthFirstSearch().solve(model).isEmpty());
+    }
+}
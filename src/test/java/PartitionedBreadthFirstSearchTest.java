@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import solver.BreadthFirstSearchModified;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.PartitionedBreadthFirstSearch;
+import spinhex.solver.PartitionedBreadthFirstSearch.WorkerLauncher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedBreadthFirstSearchTest {
+    @TempDir
+    Path spoolDirectory;
+
+    private static SpinHexModel scrambledModel() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        return model;
+    }
+
+    @Test
+    public void testInProcessWorkers() throws IOException {
+        var model = scrambledModel();
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow();
+        var solution = new PartitionedBreadthFirstSearch(3, spoolDirectory, WorkerLauncher.inProcess())
+                .solve(model)
+                .orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.getPath().size());
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testWorkerProcesses() throws IOException {
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.smallBoardTarget);
+        var solution = new PartitionedBreadthFirstSearch(2, spoolDirectory, WorkerLauncher.localProcesses())
+                .solve(model)
+                .orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(2, solution.getPath().size() - 1);
+    }
+
+    @Test
+    public void testBoardWiderThanLong() throws IOException {
+        // the 37 cells of a 7x7 board take 74 bits, i.e., two words a board
+        var target = new byte[7][7];
+        for (int q = 0; q < 7; q++) {
+            for (int s = 0; s < 7; s++) {
+                target[q][s] = (byte) ((q + s) % 3 + 1);
+            }
+        }
+        var model = new SpinHexModel(BoardTopology.of(7), target, target);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 4), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(4, 2), Rotation.COUNTERCLOCKWISE));
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model)
+                .orElseThrow();
+        var solution = new PartitionedBreadthFirstSearch(2, spoolDirectory, WorkerLauncher.localProcesses())
+                .solve(model)
+                .orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(expected.getPath().size(), solution.getPath().size());
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testManyColorsAndMoves() throws IOException {
+        // 4 colors take 3 bits a cell, and the 182 moves do not fit into a byte
+        var target = new byte[13][13];
+        for (int q = 0; q < 13; q++) {
+            for (int s = 0; s < 13; s++) {
+                target[q][s] = (byte) ((q + 2 * s) % 4 + 1);
+            }
+        }
+        var model = new SpinHexModel(BoardTopology.of(13), target, target);
+        var lastMove = new TwoPhaseAction<>(new AxialPosition(8, 9), Rotation.CLOCKWISE);
+        assertTrue(new MoveTable(model.getSolution()).indexOf(lastMove) > Byte.MAX_VALUE);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(6, 6), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(lastMove);
+
+        var solution = new PartitionedBreadthFirstSearch(3, spoolDirectory, WorkerLauncher.inProcess())
+                .solve(model)
+                .orElseThrow();
+        assertTrue(solution.getState().isSolved());
+        assertEquals(2, solution.getPath().size() - 1);
+    }
+
+    @Test
+    public void testSolvedAndUnreachable() throws IOException {
+        var search = new PartitionedBreadthFirstSearch(2, spoolDirectory, WorkerLauncher.inProcess());
+        assertEquals(0, search.solve(new SpinHexModel().getSolvedModel()).orElseThrow().getPath().size() - 1);
+
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        assertTrue(search.solve(model).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionedBreadthFirstSearch(0, spoolDirectory, WorkerLauncher.inProcess()));
+    }
+}
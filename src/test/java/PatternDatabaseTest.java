@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import solver.BidirectionalSearch;
+import solver.Heuristic;
+import solver.IterativeDeepeningAStar;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.HexColor;
+import spinhex.model.MoveTable;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.PatternDatabase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternDatabaseTest {
+
+    @Test
+    public void testBuild() {
+        var model = new SpinHexModel();
+        var database = PatternDatabase.build(model);
+        assertEquals(3, database.getTableCount());
+        assertTrue(database.matches(model));
+        assertEquals(0, database.estimate(model.getSolvedModel()));
+        for (byte color : new byte[] { HexColor.RED, HexColor.GREEN, HexColor.BLUE }) {
+            assertEquals(0, database.distance(color, model.getSolution()));
+        }
+        assertEquals(-1, database.distance(HexColor.NONE, model.getSolution()));
+    }
+
+    @Test
+    public void testAdmissible() {
+        var model = new SpinHexModel();
+        var database = PatternDatabase.build(model);
+        var solution = new BidirectionalSearch<>(SpinHexModel::inverseOf)
+                .solve(model, model.getSolvedModel())
+                .orElseThrow();
+        // every state along an optimal path must be estimated within its real distance
+        var remaining = 0;
+        for (var node = solution; node != null; node = node.getParent().orElse(null), remaining++) {
+            var estimate = database.estimate(node.getState());
+            assertTrue(estimate <= remaining, "estimate " + estimate + " > " + remaining);
+        }
+        assertTrue(database.estimate(model) > 0);
+    }
+
+    @Test
+    public void testSolveWithIterativeDeepeningAStar() {
+        var model = new SpinHexModel();
+        var solution = new IterativeDeepeningAStar<>(PatternDatabase.build(model)).solve(model);
+        assertTrue(solution.isPresent());
+        assertTrue(solution.get().getState().isSolved());
+        assertEquals(9, solution.get().getPath().size() - 1);
+    }
+
+    @Test
+    public void testUnreachableProjection() {
+        // the blue hex of the target is the center, which never moves
+        var model = new SpinHexModel(SpinHexModelTest.smallBoardStart, SpinHexModelTest.unreachableTarget);
+        var database = PatternDatabase.build(model);
+        assertEquals(-1, database.distance(HexColor.BLUE, model.getBoard()));
+        assertEquals(Heuristic.UNSOLVABLE, database.estimate(model));
+        assertTrue(new IterativeDeepeningAStar<>(database).solve(model).isEmpty());
+    }
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        var model = new SpinHexModel();
+        var database = PatternDatabase.build(model);
+        var file = Files.createTempFile("spinhex", ".pdb");
+        try {
+            database.write(file);
+            var loaded = PatternDatabase.load(file);
+            assertEquals(database.getTableCount(), loaded.getTableCount());
+            assertTrue(loaded.matches(model));
+            var state = model.getSolvedModel();
+            var moveTable = new MoveTable(model.getBoard());
+            for (int move = 0; move < moveTable.size(); move += 3) {
+                state.makeMove(moveTable.getMove(move));
+                assertEquals(database.estimate(state), loaded.estimate(state));
+            }
+            assertFalse(loaded.matches(new SpinHexModel(BidirectionalSearchTest.closerBoardStart,
+                    BidirectionalSearchTest.closerBoardStart)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testMatchesShapeAndTarget(@TempDir Path directory) throws IOException {
+        var model = new SpinHexModel();
+        var database = PatternDatabase.build(model);
+        // same cell count and color masks on another shape
+        var shape = BoardTopology.parse(BoardTopologyTest.NOTCHED_PARALLELOGRAM);
+        var target = model.getSolution();
+        var cells = new byte[shape.getSize()][shape.getSize()];
+        for (int i = 0; i < shape.getCellCount(); i++) {
+            var position = shape.getPosition(i);
+            cells[position.q()][position.s()] = target.getCell(i);
+        }
+        var shaped = new SpinHexModel(shape, cells, cells);
+        assertFalse(database.matches(shaped));
+
+        var file = directory.resolve("shaped.pdb");
+        PatternDatabase.build(shaped).write(file);
+        var loaded = PatternDatabase.load(file);
+        assertTrue(loaded.matches(shaped));
+        assertFalse(loaded.matches(model));
+    }
+
+    @Test
+    public void testLoadCorruptFile(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("spinhex.pdb");
+        PatternDatabase.build(new SpinHexModel()).write(file);
+        var bytes = Files.readAllBytes(file);
+
+        var invalidDistance = bytes.clone();
+        invalidDistance[bytes.length - 1] = -2;
+        Files.write(file, invalidDistance);
+        assertThrows(IOException.class, () -> PatternDatabase.load(file));
+
+        var trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        Files.write(file, trailing);
+        assertThrows(IOException.class, () -> PatternDatabase.load(file));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> PatternDatabase.load(file));
+
+        Files.write(file, bytes);
+        assertEquals(3, PatternDatabase.load(file).getTableCount());
+    }
+
+    @Test
+    public void testLoadInvalidFile() throws IOException {
+        var file = Files.createTempFile("spinhex", ".pdb");
+        try {
+            Files.write(file, new byte[] { 1, 2, 3 });
+            assertThrows(IOException.class, () -> PatternDatabase.load(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testMoveTableMatchesModel() {
+        var model = new SpinHexModel();
+        var moveTable = new MoveTable(model.getBoard());
+        assertEquals(14, moveTable.size());
+        for (int move = 0; move < moveTable.size(); move++) {
+            var expected = (SpinHexModel) model.clone();
+            expected.makeMove(moveTable.getMove(move));
+            var board = model.getBoard();
+            moveTable.apply(move, board);
+            assertEquals(expected.getBoard(), board);
+            assertEquals(move, moveTable.indexOf(moveTable.getMove(move)));
+            assertEquals(SpinHexModel.inverseOf(moveTable.getMove(move)),
+                    moveTable.getMove(MoveTable.inverse(move)));
+            assertEquals(expected.getColorMask(HexColor.RED),
+                    moveTable.apply(move, model.getColorMask(HexColor.RED)));
+        }
+        assertEquals(-1, moveTable.indexOf(new TwoPhaseAction<>(new AxialPosition(0, 2), Rotation.CLOCKWISE)));
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import solver.SearchTree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTreeTest {
+    @Test
+    public void testAddAndGet() {
+        var tree = new SearchTree(1);
+        int root = tree.addRoot(42);
+        int child = tree.add(43, root, 5);
+        int grandchild = tree.add(44, child, SearchTree.MAX_MOVE);
+        assertEquals(3, tree.size());
+        assertEquals(42, tree.getState(root));
+        assertEquals(SearchTree.NO_PARENT, tree.getParent(root));
+        assertEquals(SearchTree.NO_MOVE, tree.getMove(root));
+        assertEquals(root, tree.getParent(child));
+        assertEquals(5, tree.getMove(child));
+        assertEquals(SearchTree.MAX_MOVE, tree.getMove(grandchild));
+        assertEquals(0, tree.getDepth(root));
+        assertEquals(2, tree.getDepth(grandchild));
+        assertArrayEquals(new int[0], tree.getPathTo(root));
+        assertArrayEquals(new int[] { 5, SearchTree.MAX_MOVE }, tree.getPathTo(grandchild));
+    }
+
+    @Test
+    public void testLongPath() {
+        var tree = new SearchTree(0);
+        int node = tree.addRoot(0);
+        for (int i = 1; i <= 1_000_000; i++) {
+            node = tree.add(i, node, i % 14);
+        }
+        var path = tree.getPathTo(node);
+        assertEquals(1_000_000, path.length);
+        assertEquals(1, path[0]);
+        assertEquals(1_000_000 % 14, path[path.length - 1]);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        var tree = new SearchTree();
+        assertThrows(IllegalArgumentException.class, () -> new SearchTree(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.add(1, 0, 0));
+        int root = tree.addRoot(0);
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1, root, -1));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1, root, SearchTree.MAX_MOVE + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getState(1));
+    }
+}
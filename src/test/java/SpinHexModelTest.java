@@ -3,6 +3,12 @@ import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
 import spinhex.model.AxialPosition;
 import spinhex.model.*;
 
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SpinHexModelTest {
@@ -16,6 +22,12 @@ public class SpinHexModelTest {
             { HexColor.RED, HexColor.GREEN, HexColor.RED },
             { HexColor.RED, HexColor.RED, HexColor.NONE }
     };
+    // the center hex never moves, and it is green on the starting board
+    public static byte[][] unreachableTarget = new byte[][] {
+            { HexColor.NONE, HexColor.RED, HexColor.RED },
+            { HexColor.RED, HexColor.BLUE, HexColor.RED },
+            { HexColor.GREEN, HexColor.RED, HexColor.NONE }
+    };
 
     // @Test
     // public void testBoundsDetection() {
@@ -88,6 +100,121 @@ public class SpinHexModelTest {
         var board = new SpinHexModel();
         assertThrows(IllegalArgumentException.class,
                 () -> board.makeMove(new TwoPhaseAction<>(new AxialPosition(-1, -1), Rotation.CLOCKWISE)));
+        assertThrows(IllegalArgumentException.class,
+                () -> board.makeMove(new TwoPhaseAction<>(new AxialPosition(0, 2), Rotation.CLOCKWISE)));
+    }
+
+    @Test
+    public void testMakeMoveMatchesMoveTable() {
+        var model = new SpinHexModel();
+        var moveTable = new MoveTable(model.getBoard());
+        for (int move = 0; move < moveTable.size(); move++) {
+            var expected = model.getBoard();
+            moveTable.apply(move, expected);
+            var copy = (SpinHexModel) model.clone();
+            copy.makeMove(moveTable.getMove(move));
+            assertEquals(expected, copy.getBoard());
+        }
+    }
+
+    @Test
+    public void testUndoMove() {
+        var model = new SpinHexModel();
+        var original = model.clone();
+        var moves = new ArrayList<>(model.getLegalMoves());
+        for (var move : moves) {
+            model.makeMove(move);
+        }
+        assertNotEquals(original, model);
+        for (var move : moves.reversed()) {
+            model.undoMove(move);
+        }
+        assertEquals(original, model);
+        for (var move : moves) {
+            var inverse = model.clone();
+            inverse.makeMove(SpinHexModel.inverseOf(move));
+            model.undoMove(move);
+            assertEquals(inverse, model);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> model.undoMove(new TwoPhaseAction<>(new AxialPosition(0, 2), Rotation.CLOCKWISE)));
+    }
+
+    private static int countMisplacedHexes(SpinHexModel model) {
+        var board = model.getBoard();
+        var solution = model.getSolution();
+        int misplaced = 0;
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.getCell(i) != solution.getCell(i)) {
+                misplaced++;
+            }
+        }
+        return misplaced;
+    }
+
+    @Test
+    public void testMisplacedHexCountIsMaintained() {
+        var model = new SpinHexModel();
+        var moves = new ArrayList<>(model.getLegalMoves());
+        var random = new Random(42);
+        assertEquals(countMisplacedHexes(model), model.getMisplacedHexCount());
+        for (int step = 0; step < 1000; step++) {
+            var move = moves.get(random.nextInt(moves.size()));
+            if (random.nextBoolean()) {
+                model.makeMove(move);
+            } else {
+                model.undoMove(move);
+            }
+            assertEquals(countMisplacedHexes(model), model.getMisplacedHexCount());
+            assertEquals(model.getBoard().equals(model.getSolution()), model.isSolved());
+            var copy = (SpinHexModel) model.clone();
+            assertEquals(model.getMisplacedHexCount(), copy.getMisplacedHexCount());
+        }
+        assertEquals(0, model.getSolvedModel().getMisplacedHexCount());
+        assertTrue(model.getSolvedModel().isSolved());
+    }
+
+    @Test
+    public void testTilesRemainingProperty() {
+        var model = new ReadOnlySpinHexModelWrapper(smallBoardStart, smallBoardTarget);
+        var tilesRemaining = model.getTilesRemainingProperty();
+        assertEquals(model.getMisplacedHexCount(), tilesRemaining.get());
+        var move = new TwoPhaseAction<>(new AxialPosition(1, 1), Rotation.CLOCKWISE);
+        model.makeMove(move);
+        assertEquals(countMisplacedHexes(model), tilesRemaining.get());
+        model.undoMove(move);
+        assertEquals(countMisplacedHexes(model), tilesRemaining.get());
+        assertEquals(model.getBoard().get(1, 2), model.getHexProperty(1, 2).get());
+    }
+
+    @Test
+    public void testWrapperOnShape() {
+        var shape = BoardTopology.parse(BoardTopologyTest.NOTCHED_PARALLELOGRAM);
+        var model = new ReadOnlySpinHexModelWrapper(shape, BoardTopologyTest.notchedStart,
+                BoardTopologyTest.notchedStart);
+        var move = new TwoPhaseAction<>(new AxialPosition(1, 1), Rotation.CLOCKWISE);
+        model.makeMove(move);
+        for (int i = 0; i < shape.getCellCount(); i++) {
+            var position = shape.getPosition(i);
+            assertEquals(model.getBoard().getCell(i), model.getHexProperty(position.q(), position.s()).get());
+        }
+        assertTrue(model.getTilesRemainingProperty().get() > 0);
+        assertEquals(countMisplacedHexes(model), model.getTilesRemainingProperty().get());
+        model.undoMove(move);
+        assertEquals(0, model.getTilesRemainingProperty().get());
+        assertEquals(BoardTopologyTest.notchedStart[0][1], model.getHexProperty(0, 1).get());
+
+        var scrambled = ReadOnlySpinHexModelWrapper.scrambled(shape, 20, new Random(42));
+        assertSame(shape, scrambled.getBoard().getTopology());
+        assertFalse(scrambled.isSolved());
+        for (byte color = HexColor.RED; color <= HexColor.BLUE; color++) {
+            assertEquals(Long.bitCount(scrambled.getColorMask(color)),
+                    Long.bitCount(scrambled.getSolvedModel().getColorMask(color)));
+        }
+        for (int i = 0; i < shape.getCellCount(); i++) {
+            var position = shape.getPosition(i);
+            assertEquals(scrambled.getBoard().getCell(i), scrambled.getHexProperty(position.q(), position.s()).get());
+        }
     }
 
     @Test
@@ -193,4 +320,58 @@ public class SpinHexModelTest {
         board.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 1), Rotation.CLOCKWISE));
         assertEquals(board.hashCode(), copy.hashCode());
     }
+
+    @Test
+    public void testLegalMovesAreShared() throws InterruptedException {
+        var model = new SpinHexModel();
+        var legalMoves = model.getLegalMoves();
+        assertSame(legalMoves, model.getLegalMoves());
+        assertSame(legalMoves, new SpinHexModel().getLegalMoves());
+        assertSame(legalMoves, model.clone().getLegalMoves());
+        var move = legalMoves.iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> legalMoves.remove(move));
+
+        var shape = BoardTopology.parse("""
+                o o o o
+                o o o o
+                o o o o
+                """);
+        var start = new byte[][] { { 1, 2, 3, 1 }, { 2, 3, 1, 2 }, { 3, 1, 2, 3 } };
+        var sets = new ConcurrentLinkedQueue<Set<?>>();
+        var threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    sets.add(new SpinHexModel(shape, start, start).getLegalMoves());
+                }
+            });
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(8_000, sets.size());
+        assertTrue(sets.stream().allMatch(set -> set == sets.peek() && set.size() == 4));
+    }
+
+    @Test
+    public void testLegalMovesSkipBlockedPivots() {
+        var start = new byte[][] {
+                { HexColor.NONE, HexColor.NONE, HexColor.RED, HexColor.RED, HexColor.RED },
+                { HexColor.NONE, HexColor.RED, HexColor.NONE, HexColor.RED, HexColor.BLUE },
+                { HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE, HexColor.BLUE },
+                { HexColor.BLUE, HexColor.GREEN, HexColor.GREEN, HexColor.GREEN, HexColor.NONE },
+                { HexColor.GREEN, HexColor.GREEN, HexColor.GREEN, HexColor.NONE, HexColor.NONE }
+        };
+        var model = new SpinHexModel(start, start);
+        // the empty hex at (1, 2) blocks the pivots whose neighbor it is
+        assertEquals(Set.of(new AxialPosition(1, 2), new AxialPosition(2, 3),
+                new AxialPosition(3, 1), new AxialPosition(3, 2)),
+                model.getLegalMoves().stream().map(TwoPhaseAction::from).collect(Collectors.toSet()));
+        assertNotSame(new SpinHexModel().getLegalMoves(), model.getLegalMoves());
+        for (var move : model.getLegalMoves()) {
+            model.makeMove(move);
+        }
+        assertEquals(HexColor.NONE, model.getHex(new AxialPosition(1, 2)));
+        assertEquals(8, model.getLegalMoves().size());
+    }
 }
@@ -0,0 +1,178 @@
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.junit.jupiter.api.Test;
+import solver.BidirectionalSearch;
+import solver.BreadthFirstSearchModified;
+import solver.IterativeDeepeningAStar;
+import solver.MovePruner;
+import solver.Node;
+import spinhex.model.AxialPosition;
+import spinhex.model.BoardTopology;
+import spinhex.model.HexColor;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.MoveTable;
+import spinhex.model.PackedSpinHex;
+import spinhex.model.Rotation;
+import spinhex.model.SpinHexModel;
+import spinhex.model.TwoPhaseActionState.TwoPhaseAction;
+import spinhex.solver.MisplacedHexesHeuristic;
+import spinhex.solver.SpinHexMovePruner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpinHexMovePrunerTest {
+    private static final int MAX_DEPTH = 5;
+
+    private static LongIntHashMap shortestDepths(PackedSpinHex kernel, long start) {
+        var depths = new LongIntHashMap();
+        var layer = new long[] { start };
+        depths.put(start, 0);
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            var next = new LongArrayList();
+            for (long board : layer) {
+                for (int move = 0; move < kernel.size(); move++) {
+                    long child = kernel.apply(move, board);
+                    if (!depths.containsKey(child)) {
+                        depths.put(child, depth);
+                        next.add(child);
+                    }
+                }
+            }
+            layer = next.toArray();
+        }
+        return depths;
+    }
+
+    private static long enumerate(PackedSpinHex kernel, SpinHexMovePruner pruner, long board, int state, int depth,
+            LongIntHashMap depths) {
+        if (depths.getIfAbsent(board, Integer.MAX_VALUE) > depth) {
+            depths.put(board, depth);
+        }
+        if (depth == MAX_DEPTH) {
+            return 1;
+        }
+        long sequences = 1;
+        for (int move = 0; move < kernel.size(); move++) {
+            int next = pruner.next(state, move);
+            if (next != MovePruner.PRUNED) {
+                sequences += enumerate(kernel, pruner, kernel.apply(move, board), next, depth + 1, depths);
+            }
+        }
+        return sequences;
+    }
+
+    @Test
+    public void testAllowedSequencesReachEveryStateAtItsDepth() {
+        var model = new SpinHexModel();
+        var kernel = new PackedSpinHex(model.getSolution());
+        long start = kernel.pack(model.getBoard());
+        var expected = shortestDepths(kernel, start);
+        long unpruned = 0;
+        for (int depth = 0, count = 1; depth <= MAX_DEPTH; depth++, count *= kernel.size()) {
+            unpruned += count;
+        }
+        long previous = unpruned;
+        for (var pruner : new SpinHexMovePruner[] {
+                SpinHexMovePruner.forGraphSearch(kernel.getMoveTable()),
+                SpinHexMovePruner.forTreeSearch(kernel.getMoveTable()) }) {
+            var depths = new LongIntHashMap();
+            long sequences = enumerate(kernel, pruner, start, pruner.getInitialState(), 0, depths);
+            assertEquals(expected, depths);
+            assertTrue(sequences < previous, sequences + " >= " + previous);
+            previous = sequences;
+        }
+    }
+
+    @Test
+    public void testRedundantSequences() {
+        var moveTable = new MoveTable(new SpinHexModel().getBoard());
+        var tree = SpinHexMovePruner.forTreeSearch(moveTable);
+        var graph = SpinHexMovePruner.forGraphSearch(moveTable);
+        int clockwise = 0;
+        int counterClockwise = MoveTable.inverse(clockwise);
+        for (var pruner : new SpinHexMovePruner[] { tree, graph }) {
+            int state = pruner.next(pruner.getInitialState(), clockwise);
+            assertEquals(MovePruner.PRUNED, pruner.next(state, counterClockwise));
+            state = pruner.next(pruner.next(state, clockwise), clockwise);
+            assertNotEquals(MovePruner.PRUNED, state);
+            assertEquals(MovePruner.PRUNED, pruner.next(state, clockwise));
+        }
+        int state = tree.next(tree.next(tree.getInitialState(), counterClockwise), counterClockwise);
+        assertEquals(MovePruner.PRUNED, tree.next(state, counterClockwise));
+        state = graph.next(graph.next(graph.getInitialState(), counterClockwise), counterClockwise);
+        assertNotEquals(MovePruner.PRUNED, graph.next(state, counterClockwise));
+    }
+
+    @Test
+    public void testCommutingMovesOnLargeBoard() {
+        var board = new HexagonalGrid(BoardTopology.of(11));
+        for (int i = 0; i < board.getCellCount(); i++) {
+            board.setCell(i, HexColor.RED);
+        }
+        assertTrue(board.getCellCount() > Long.SIZE);
+        var moveTable = new MoveTable(board);
+        var tree = SpinHexMovePruner.forTreeSearch(moveTable);
+        for (int last = 0; last < moveTable.size(); last++) {
+            int state = tree.next(tree.getInitialState(), last);
+            for (int move = 0; move < moveTable.size(); move++) {
+                if (move >> 1 == last >> 1) {
+                    continue;
+                }
+                var commuting = true;
+                for (int k = 0; k < MoveTable.CYCLE_LENGTH; k++) {
+                    for (int l = 0; l < MoveTable.CYCLE_LENGTH; l++) {
+                        commuting &= moveTable.getCycleCell(move, k) != moveTable.getCycleCell(last, l);
+                    }
+                }
+                assertEquals(commuting && move >> 1 < last >> 1, tree.next(state, move) == MovePruner.PRUNED);
+            }
+        }
+    }
+
+    @Test
+    public void testStateOf() {
+        var model = new SpinHexModel();
+        var pruner = SpinHexMovePruner.forTreeSearch(new MoveTable(model.getBoard()));
+        var move = new TwoPhaseAction<>(new AxialPosition(2, 2), Rotation.CLOCKWISE);
+        var node = new Node<TwoPhaseAction<AxialPosition, Rotation>>(model);
+        int state = pruner.getInitialState();
+        assertEquals(state, pruner.stateOf(node));
+        for (int i = 0; i < 2; i++) {
+            var next = node.getState().clone();
+            next.makeMove(move);
+            node = new Node<>(next, node, move);
+            state = pruner.next(state, move);
+            assertEquals(state, pruner.stateOf(node));
+        }
+        assertTrue(node.expand(pruner).size() < node.expand().size());
+    }
+
+    @Test
+    public void testSolversFindShortestSolutions() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(1, 2), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 3), Rotation.CLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(3, 1), Rotation.COUNTERCLOCKWISE));
+        model.makeMove(new TwoPhaseAction<>(new AxialPosition(2, 1), Rotation.CLOCKWISE));
+        var moveTable = new MoveTable(model.getBoard());
+        var tree = SpinHexMovePruner.forTreeSearch(moveTable);
+        var graph = SpinHexMovePruner.forGraphSearch(moveTable);
+
+        var expected = new BreadthFirstSearchModified<TwoPhaseAction<AxialPosition, Rotation>>()
+                .solve(model, model.rankedIndexer())
+                .orElseThrow().getPath().size() - 1;
+        var bfs = new BreadthFirstSearchModified<>(graph).solve(model, model.rankedIndexer()).orElseThrow();
+        var bidirectional = new BidirectionalSearch<>(SpinHexModel::inverseOf, graph)
+                .solve(model, model.getSolvedModel())
+                .orElseThrow();
+        var idaStar = new IterativeDeepeningAStar<>(new MisplacedHexesHeuristic(), Integer.MAX_VALUE, tree)
+                .solve(model)
+                .orElseThrow();
+        for (var solution : List.of(bfs, bidirectional, idaStar)) {
+            assertTrue(solution.getState().isSolved());
+            assertEquals(expected, solution.getPath().size() - 1);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+import spinhex.model.BoardRanker;
+import spinhex.model.DistanceDatabase;
+import spinhex.model.HexColor;
+import spinhex.model.HexagonalGrid;
+import spinhex.model.SpinHexModel;
+import spinhex.solver.TwoBitBreadthFirstSearch;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoBitBreadthFirstSearchTest {
+    @Test
+    public void testSweepMatchesDistanceDatabase() {
+        var model = new SpinHexModel(DistanceDatabaseTest.sparseTarget, DistanceDatabaseTest.sparseTarget);
+        var database = DistanceDatabase.build(model);
+        var search = new TwoBitBreadthFirstSearch(model.getSolution());
+        var result = search.sweep();
+        assertEquals(542_640, result.stateCount());
+
+        var ranker = new BoardRanker(model.getSolution());
+        var expected = new long[DistanceDatabase.MAX_DISTANCE + 1];
+        int radius = 0;
+        long unreachable = 0;
+        for (long rank = 0; rank < ranker.size(); rank++) {
+            var board = ranker.unrank(rank);
+            int distance = database.distance(board);
+            if (distance < 0) {
+                unreachable++;
+                assertFalse(search.isReachable(board));
+                assertEquals(-1, search.getDistanceResidue(board));
+            } else {
+                expected[distance]++;
+                radius = Math.max(radius, distance);
+                assertTrue(search.isReachable(board));
+                assertEquals(distance % 3, search.getDistanceResidue(board));
+            }
+        }
+        assertEquals(radius, result.radius());
+        assertArrayEquals(Arrays.copyOf(expected, radius + 1), result.depthCounts());
+        assertEquals(unreachable, result.unreachable());
+        assertEquals(ranker.size() - unreachable, result.reachable());
+    }
+
+    @Test
+    public void testSmallBoard() {
+        var board = new HexagonalGrid(SpinHexModelTest.smallBoardTarget);
+        var result = new TwoBitBreadthFirstSearch(board).sweep();
+        // a single pivot only rotates the blue hex around the green one
+        assertArrayEquals(new long[] { 1, 2, 2, 1 }, result.depthCounts());
+        assertEquals(3, result.radius());
+        assertEquals(42, result.stateCount());
+        assertEquals(36, result.unreachable());
+        assertFalse(new TwoBitBreadthFirstSearch(board).isReachable(new HexagonalGrid(3)));
+    }
+}
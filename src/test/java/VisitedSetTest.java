@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+import solver.BitSetVisitedSet;
+import solver.HashVisitedSet;
+import solver.OffHeapVisitedSet;
+import solver.VisitedSet;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisitedSetTest {
+    private static void assertBehavesLikeSet(VisitedSet visited, long bound) {
+        var expected = new HashSet<Long>();
+        var random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long key = Math.floorMod(random.nextLong(), bound);
+            assertEquals(expected.add(key), visited.add(key));
+            assertEquals(expected.size(), visited.size());
+        }
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(expected.contains(key), visited.contains(key));
+        }
+        for (long key : expected) {
+            assertTrue(visited.contains(key));
+        }
+    }
+
+    @Test
+    public void testHashVisitedSet() {
+        try (var visited = new HashVisitedSet()) {
+            assertBehavesLikeSet(visited, 100_000);
+        }
+    }
+
+    @Test
+    public void testBitSetVisitedSet() {
+        try (var visited = new BitSetVisitedSet(100_000)) {
+            assertBehavesLikeSet(visited, 100_000);
+        }
+    }
+
+    @Test
+    public void testBitSetVisitedSetTooLarge() {
+        assertThrows(IllegalArgumentException.class, () -> new BitSetVisitedSet(1L << 32));
+    }
+
+    @Test
+    public void testOffHeapVisitedSet() {
+        try (var visited = new OffHeapVisitedSet()) {
+            assertBehavesLikeSet(visited, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testOffHeapVisitedSetZeroKey() {
+        try (var visited = new OffHeapVisitedSet(4)) {
+            assertFalse(visited.contains(0));
+            assertTrue(visited.add(0));
+            assertFalse(visited.add(0));
+            assertTrue(visited.contains(0));
+            assertEquals(1, visited.size());
+        }
+    }
+
+    @Test
+    public void testOffHeapVisitedSetGrows() {
+        try (var visited = new OffHeapVisitedSet(0)) {
+            long initialCapacity = visited.capacity();
+            for (long key = 1; key <= 10_000; key++) {
+                assertTrue(visited.add(key * 0x9E3779B97F4A7C15L));
+            }
+            assertTrue(visited.capacity() > initialCapacity);
+            assertTrue(visited.size() <= visited.capacity() * 3 / 4);
+            for (long key = 1; key <= 10_000; key++) {
+                assertTrue(visited.contains(key * 0x9E3779B97F4A7C15L));
+            }
+            assertFalse(visited.contains(10_001 * 0x9E3779B97F4A7C15L));
+        }
+    }
+
+    @Test
+    public void testOffHeapVisitedSetClosed() {
+        var visited = new OffHeapVisitedSet();
+        visited.add(1);
+        visited.close();
+        assertThrows(IllegalStateException.class, () -> visited.contains(1));
+    }
+
+    @Test
+    public void testOffHeapVisitedSetNegativeExpectedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapVisitedSet(-1));
+    }
+}